@@ -0,0 +1,58 @@
+package com.archie.ai.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Content-addressed key for diagram analysis results.
+ * SHA-256 over the image bytes, the normalized instructions and the model name.
+ */
+public final class AnalysisCacheKey {
+
+    private static final byte SEPARATOR = 0;
+
+    private AnalysisCacheKey() {
+    }
+
+    /**
+     * Build the cache key for an analysis request
+     */
+    public static String of(byte[] imageData, String additionalInstructions, String model) {
+        MessageDigest digest = sha256();
+        if (imageData != null) {
+            digest.update(imageData);
+        }
+        digest.update(SEPARATOR);
+        digest.update(normalizeInstructions(additionalInstructions).getBytes(StandardCharsets.UTF_8));
+        digest.update(SEPARATOR);
+        digest.update((model != null ? model : "").getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Key of the instructions and model alone, shared by every image analyzed with them
+     */
+    public static String context(String additionalInstructions, String model) {
+        return of(null, additionalInstructions, model);
+    }
+
+    /**
+     * Trim and collapse whitespace so cosmetic edits don't miss the cache
+     */
+    public static String normalizeInstructions(String additionalInstructions) {
+        if (additionalInstructions == null || additionalInstructions.isBlank()) {
+            return "";
+        }
+        return additionalInstructions.trim().replaceAll("\\s+", " ");
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.archie.ai.cache;
+
+import com.archie.ai.model.DiagramAnalysisResult;
+import com.archie.config.ArchieConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Two-tier cache for Gemini analysis results.
+ * Bounded in-memory LRU tier backed by an optional JSON-file tier under the upload directory.
+ * Cached results are shared between callers and must be treated as read-only.
+ */
+@Slf4j
+@Component
+public class AnalysisResultCache {
+
+    private final ArchieConfig.Cache cacheConfig;
+    private final ObjectMapper objectMapper;
+    private final Map<String, DiagramAnalysisResult> memory;
+    private final Path diskDirectory;
+
+    public AnalysisResultCache(ArchieConfig config, ObjectMapper objectMapper) {
+        this.cacheConfig = config.getAnalysis().getCache();
+        this.objectMapper = objectMapper;
+
+        int maxEntries = Math.max(1, cacheConfig.getMaxEntries());
+        this.memory = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, DiagramAnalysisResult> eldest) {
+                return size() > maxEntries;
+            }
+        });
+
+        this.diskDirectory = cacheConfig.isDiskEnabled() && config.getUpload().getDirectory() != null
+                ? Paths.get(config.getUpload().getDirectory()).resolve(cacheConfig.getDiskDirectory())
+                : null;
+    }
+
+    /**
+     * Look up a cached result, promoting disk hits into memory
+     */
+    public Optional<DiagramAnalysisResult> get(String key) {
+        if (!cacheConfig.isEnabled()) {
+            return Optional.empty();
+        }
+
+        DiagramAnalysisResult result = memory.get(key);
+        if (result != null) {
+            log.debug("Analysis cache memory hit: {}", key);
+            return Optional.of(result);
+        }
+
+        result = readFromDisk(key);
+        if (result != null) {
+            log.debug("Analysis cache disk hit: {}", key);
+            memory.put(key, result);
+        }
+        return Optional.ofNullable(result);
+    }
+
+    /**
+     * Store a result in both tiers
+     */
+    public void put(String key, DiagramAnalysisResult result) {
+        if (!cacheConfig.isEnabled() || result == null) {
+            return;
+        }
+        memory.put(key, result);
+        writeToDisk(key, result);
+    }
+
+    private DiagramAnalysisResult readFromDisk(String key) {
+        if (diskDirectory == null) {
+            return null;
+        }
+        Path file = diskDirectory.resolve(key + ".json");
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(file.toFile(), DiagramAnalysisResult.class);
+        } catch (IOException e) {
+            log.warn("Discarding unreadable analysis cache entry {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, DiagramAnalysisResult result) {
+        if (diskDirectory == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(diskDirectory);
+            Path tempFile = Files.createTempFile(diskDirectory, key, ".tmp");
+            objectMapper.writeValue(tempFile.toFile(), result);
+            Files.move(tempFile, diskDirectory.resolve(key + ".json"),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to write analysis cache entry {}: {}", key, e.getMessage());
+        }
+    }
+}
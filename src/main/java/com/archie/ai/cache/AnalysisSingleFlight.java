@@ -0,0 +1,64 @@
+package com.archie.ai.cache;
+
+import com.archie.ai.model.DiagramAnalysisResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent analyses with the same content key onto a single Gemini call.
+ * The first caller runs the call; duplicates arriving while it is in flight share its outcome.
+ */
+@Slf4j
+@Component
+public class AnalysisSingleFlight {
+
+    private final ConcurrentMap<String, CompletableFuture<DiagramAnalysisResult>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    /**
+     * Run the call for this key unless an identical one is already in flight.
+     * Every caller receives its own dependent future, so cancelling one does not affect the others.
+     */
+    public CompletableFuture<DiagramAnalysisResult> execute(String key,
+            Supplier<CompletableFuture<DiagramAnalysisResult>> call) {
+        CompletableFuture<DiagramAnalysisResult> promise = new CompletableFuture<>();
+        CompletableFuture<DiagramAnalysisResult> existing = inFlight.putIfAbsent(key, promise);
+        if (existing != null) {
+            coalescedCount.incrementAndGet();
+            log.info("Joining in-flight analysis {}", key);
+            return existing.copy();
+        }
+
+        CompletableFuture<DiagramAnalysisResult> upstream;
+        try {
+            upstream = call.get();
+        } catch (RuntimeException e) {
+            upstream = CompletableFuture.failedFuture(e);
+        }
+
+        upstream.whenComplete((result, error) -> {
+            // Unregister first: later arrivals should hit the result cache, not a finished flight
+            inFlight.remove(key, promise);
+            if (error != null) {
+                promise.completeExceptionally(error);
+            } else {
+                promise.complete(result);
+            }
+        });
+        return promise.copy();
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+}
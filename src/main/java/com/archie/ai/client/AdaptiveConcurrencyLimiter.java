@@ -0,0 +1,119 @@
+package com.archie.ai.client;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AIMD concurrency limit with a bounded FIFO wait queue.
+ * Every successful call raises the limit by 1/limit (about +1 per round trip of calls);
+ * an overload signal from Gemini (429, 5xx, timeout) cuts it multiplicatively.
+ */
+@Slf4j
+class AdaptiveConcurrencyLimiter {
+
+    enum Outcome {
+        SUCCESS, OVERLOAD, IGNORE
+    }
+
+    private static final double BACKOFF_RATIO = 0.7;
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition slotAvailable = lock.newCondition();
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueued;
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    private double limit;
+    private int inFlight;
+    private int waiting;
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, int maxQueued) {
+        this.maxLimit = Math.max(1, maxLimit);
+        this.minLimit = Math.max(1, Math.min(minLimit, this.maxLimit));
+        this.maxQueued = Math.max(0, maxQueued);
+        this.limit = Math.max(this.minLimit, Math.min(initialLimit, this.maxLimit));
+    }
+
+    /**
+     * Take a slot, waiting in line for at most maxWait
+     */
+    void acquire(Duration maxWait) throws InterruptedException {
+        lock.lock();
+        try {
+            if (waiting == 0 && inFlight < (int) limit) {
+                inFlight++;
+                return;
+            }
+            if (waiting >= maxQueued) {
+                rejectedCount.incrementAndGet();
+                throw new GeminiUnavailableException("Too many pending Gemini requests (" + waiting + " queued)",
+                        null);
+            }
+
+            waiting++;
+            try {
+                long remaining = maxWait.toNanos();
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        rejectedCount.incrementAndGet();
+                        throw new GeminiUnavailableException("Timed out after " + maxWait.toMillis()
+                                + "ms waiting for a Gemini slot", null);
+                    }
+                    remaining = slotAvailable.awaitNanos(remaining);
+                }
+                inFlight++;
+            } finally {
+                waiting--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Return the slot and adjust the limit according to how the call went
+     */
+    void release(Outcome outcome) {
+        lock.lock();
+        try {
+            inFlight--;
+            switch (outcome) {
+                case SUCCESS -> limit = Math.min(maxLimit, limit + 1.0 / limit);
+                case OVERLOAD -> {
+                    double previous = limit;
+                    limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+                    log.info("Gemini overload signal, concurrency limit {} -> {}", (int) previous, (int) limit);
+                }
+                case IGNORE -> {
+                    // Client-side errors say nothing about upstream capacity
+                }
+            }
+            for (int free = (int) limit - inFlight; free > 0 && waiting > 0; free--) {
+                slotAvailable.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getLimit() {
+        return (int) limit;
+    }
+
+    int getInFlight() {
+        return inFlight;
+    }
+
+    int getQueueDepth() {
+        return waiting;
+    }
+
+    long getRejectedCount() {
+        return rejectedCount.get();
+    }
+}
@@ -0,0 +1,19 @@
+package com.archie.ai.client;
+
+import lombok.Getter;
+
+/**
+ * Non-success HTTP response from the Gemini API
+ */
+@Getter
+public class GeminiApiException extends RuntimeException {
+
+    private final int statusCode;
+    private final String retryAfter;
+
+    public GeminiApiException(int statusCode, String retryAfter, String message) {
+        super(message);
+        this.statusCode = statusCode;
+        this.retryAfter = retryAfter;
+    }
+}
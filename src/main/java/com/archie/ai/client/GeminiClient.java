@@ -0,0 +1,315 @@
+package com.archie.ai.client;
+
+import com.archie.config.ArchieConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Asynchronous client for the Gemini REST API.
+ * Built on a shared JDK HttpClient (HTTP/2, pooled keep-alive connections) whose
+ * blocking calls run on virtual threads, so no platform thread waits on Gemini.
+ * Calls pass through an adaptive concurrency limit and are retried with jittered
+ * exponential backoff (honouring Retry-After) when Gemini answers 429 or 5xx,
+ * as long as the call's deadline leaves room for another attempt.
+ */
+@Slf4j
+@Component
+public class GeminiClient {
+
+    private static final int MAX_ERROR_BODY_LENGTH = 500;
+    private static final String SSE_DATA_PREFIX = "data:";
+    private static final Set<Integer> RETRYABLE_STATUS_CODES = Set.of(429, 500, 502, 503, 504);
+
+    private final ArchieConfig.Client clientConfig;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService executor;
+    private final HttpClient httpClient;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final Counter retryCounter;
+
+    @Value("${gemini.api.key:${GEMINI_API_KEY:}}")
+    private String apiKey;
+
+    public GeminiClient(ArchieConfig config, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.clientConfig = config.getAnalysis().getClient();
+        this.objectMapper = objectMapper;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(clientConfig.getConnectTimeout())
+                .executor(executor)
+                .build();
+        this.limiter = new AdaptiveConcurrencyLimiter(clientConfig.getInitialLimit(), clientConfig.getMinLimit(),
+                clientConfig.getMaxInFlight(), clientConfig.getMaxQueued());
+
+        Gauge.builder("gemini.client.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive limit on concurrent Gemini calls")
+                .register(meterRegistry);
+        Gauge.builder("gemini.client.in.flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Gemini calls currently in progress")
+                .register(meterRegistry);
+        Gauge.builder("gemini.client.queue.depth", limiter, AdaptiveConcurrencyLimiter::getQueueDepth)
+                .description("Requests waiting for a Gemini slot")
+                .register(meterRegistry);
+        FunctionCounter.builder("gemini.client.rejections", limiter, AdaptiveConcurrencyLimiter::getRejectedCount)
+                .description("Requests rejected because the wait queue was full or timed out")
+                .register(meterRegistry);
+        this.retryCounter = Counter.builder("gemini.client.retries")
+                .description("Gemini calls retried after 429/5xx")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Call generateContent for the given model and return the raw response body
+     */
+    public CompletableFuture<String> generateContent(String model, GeminiRequestBody requestBody) {
+        long deadlineNanos = deadlineNanos();
+        return CompletableFuture.supplyAsync(() -> withRetry(() -> {
+            HttpRequest request = newRequest(endpoint(model, "generateContent"), requestBody);
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() / 100 != 2) {
+                throw apiError(response, response.body());
+            }
+            return response.body();
+        }, () -> true, deadlineNanos), executor);
+    }
+
+    /**
+     * Call generateContent and return the text of the first candidate
+     */
+    public CompletableFuture<String> generateText(String model, GeminiRequestBody requestBody) {
+        return generateContent(model, requestBody).thenApply(this::extractCandidateText);
+    }
+
+    /**
+     * Call streamGenerateContent (server-sent events) and hand every text fragment to the consumer
+     * as soon as its chunk arrives
+     */
+    public CompletableFuture<Void> streamGenerateContent(String model, GeminiRequestBody requestBody,
+            Consumer<String> onText) {
+        long deadlineNanos = deadlineNanos();
+        // Once text has reached the consumer a retry would duplicate it
+        AtomicBoolean emitted = new AtomicBoolean();
+        Consumer<String> tracked = text -> {
+            emitted.set(true);
+            onText.accept(text);
+        };
+        return CompletableFuture.runAsync(() -> withRetry(() -> {
+            HttpRequest request = newRequest(endpoint(model, "streamGenerateContent?alt=sse"), requestBody);
+            HttpResponse<Stream<String>> response = httpClient.send(request, HttpResponse.BodyHandlers.ofLines());
+            try (Stream<String> lines = response.body()) {
+                if (response.statusCode() / 100 != 2) {
+                    throw apiError(response, lines.collect(Collectors.joining("\n")));
+                }
+                Iterator<String> iterator = lines.iterator();
+                while (iterator.hasNext()) {
+                    String line = iterator.next();
+                    if (line.startsWith(SSE_DATA_PREFIX)) {
+                        emitChunkText(line.substring(SSE_DATA_PREFIX.length()).trim(), tracked);
+                    }
+                }
+            }
+            return null;
+        }, () -> !emitted.get(), deadlineNanos), executor);
+    }
+
+    /**
+     * Extract the generated text from a generateContent response
+     */
+    private String extractCandidateText(String responseBody) {
+        try {
+            JsonNode root = objectMapper.readTree(responseBody);
+            JsonNode candidates = root.path("candidates");
+            if (candidates.isArray() && candidates.size() > 0) {
+                JsonNode firstCandidate = candidates.get(0);
+                JsonNode contentNode = firstCandidate.path("content");
+                JsonNode partsNode = contentNode.path("parts");
+                if (partsNode.isArray() && partsNode.size() > 0) {
+                    return partsNode.get(0).path("text").asText();
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error reading Gemini API response: {}", e.getMessage());
+            throw new RuntimeException("Gemini API call failed: " + e.getMessage(), e);
+        }
+
+        throw new RuntimeException("Invalid response from Gemini API: " + truncate(responseBody));
+    }
+
+    private void emitChunkText(String chunkJson, Consumer<String> onText) throws IOException {
+        if (chunkJson.isEmpty()) {
+            return;
+        }
+        JsonNode parts = objectMapper.readTree(chunkJson).path("candidates").path(0).path("content").path("parts");
+        for (JsonNode part : parts) {
+            String text = part.path("text").asText("");
+            if (!text.isEmpty()) {
+                onText.accept(text);
+            }
+        }
+    }
+
+    private long deadlineNanos() {
+        return System.nanoTime() + clientConfig.getDeadline().toNanos();
+    }
+
+    /**
+     * Run the call, retrying 429/5xx responses while attempts remain, retryAllowed says so
+     * and the backoff ends before the deadline
+     */
+    private <T> T withRetry(Callable<T> call, BooleanSupplier retryAllowed, long deadlineNanos) {
+        for (int attempt = 0;; attempt++) {
+            try {
+                return withPermit(call, deadlineNanos);
+            } catch (GeminiApiException e) {
+                if (!RETRYABLE_STATUS_CODES.contains(e.getStatusCode())) {
+                    throw e;
+                }
+                Duration retryAfter = parseRetryAfter(e.getRetryAfter());
+                if (attempt >= clientConfig.getMaxRetries() || !retryAllowed.getAsBoolean()
+                        || (retryAfter != null && retryAfter.compareTo(clientConfig.getMaxBackoff()) > 0)) {
+                    throw new GeminiUnavailableException("Gemini is unavailable: " + e.getMessage(), retryAfter, e);
+                }
+
+                Duration delay = retryAfter != null ? retryAfter : backoff(attempt);
+                if (System.nanoTime() + delay.toNanos() - deadlineNanos >= 0) {
+                    throw new GeminiUnavailableException("Gemini is unavailable, no time left to retry: "
+                            + e.getMessage(), retryAfter, e);
+                }
+                log.warn("Gemini returned {}, retrying in {}ms (attempt {}/{})", e.getStatusCode(),
+                        delay.toMillis(), attempt + 1, clientConfig.getMaxRetries());
+                retryCounter.increment();
+                sleep(delay);
+            } catch (GeminiUnavailableException e) {
+                throw e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException("Interrupted while calling Gemini API", e);
+            } catch (Exception e) {
+                throw new CompletionException("Gemini API request failed: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private <T> T withPermit(Callable<T> call, long deadlineNanos) throws Exception {
+        Duration untilDeadline = Duration.ofNanos(Math.max(0, deadlineNanos - System.nanoTime()));
+        limiter.acquire(untilDeadline.compareTo(clientConfig.getQueueTimeout()) < 0
+                ? untilDeadline
+                : clientConfig.getQueueTimeout());
+        AdaptiveConcurrencyLimiter.Outcome outcome = AdaptiveConcurrencyLimiter.Outcome.IGNORE;
+        try {
+            T result = call.call();
+            outcome = AdaptiveConcurrencyLimiter.Outcome.SUCCESS;
+            return result;
+        } catch (GeminiApiException e) {
+            if (RETRYABLE_STATUS_CODES.contains(e.getStatusCode())) {
+                outcome = AdaptiveConcurrencyLimiter.Outcome.OVERLOAD;
+            }
+            throw e;
+        } catch (HttpTimeoutException e) {
+            outcome = AdaptiveConcurrencyLimiter.Outcome.OVERLOAD;
+            throw e;
+        } finally {
+            limiter.release(outcome);
+        }
+    }
+
+    /**
+     * Exponential backoff with equal jitter: half fixed, half random, capped at maxBackoff
+     */
+    private Duration backoff(int attempt) {
+        long cap = Math.min(clientConfig.getMaxBackoff().toMillis(),
+                clientConfig.getInitialBackoff().toMillis() << Math.min(attempt, 20));
+        long half = Math.max(1, cap / 2);
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(half + 1));
+    }
+
+    /**
+     * Retry-After is either delta-seconds or an HTTP date
+     */
+    private Duration parseRetryAfter(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException e) {
+            try {
+                Duration until = Duration.between(ZonedDateTime.now(),
+                        ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME));
+                return until.isNegative() ? Duration.ZERO : until;
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+
+    private void sleep(Duration delay) throws InterruptedException {
+        if (!delay.isZero()) {
+            Thread.sleep(delay);
+        }
+    }
+
+    private HttpRequest newRequest(URI uri, GeminiRequestBody requestBody) {
+        return HttpRequest.newBuilder(uri)
+                .timeout(clientConfig.getReadTimeout())
+                .header("Content-Type", "application/json")
+                .header("x-goog-api-key", apiKey)
+                .POST(requestBody.toBodyPublisher())
+                .build();
+    }
+
+    private GeminiApiException apiError(HttpResponse<?> response, String body) {
+        return new GeminiApiException(response.statusCode(),
+                response.headers().firstValue("Retry-After").orElse(null),
+                "Gemini API returned " + response.statusCode() + ": " + truncate(body));
+    }
+
+    private URI endpoint(String model, String method) {
+        return URI.create(String.format("%s/models/%s:%s", clientConfig.getBaseUrl(), model, method));
+    }
+
+    private String truncate(String body) {
+        if (body == null || body.length() <= MAX_ERROR_BODY_LENGTH) {
+            return body;
+        }
+        return body.substring(0, MAX_ERROR_BODY_LENGTH) + "...";
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
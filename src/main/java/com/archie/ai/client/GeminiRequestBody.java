@@ -0,0 +1,96 @@
+package com.archie.ai.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+
+/**
+ * A generateContent request body that is written as the HttpClient sends it.
+ * Only a few chunks are held in memory at a time; every send (including retries) writes the body afresh.
+ */
+public class GeminiRequestBody {
+
+    // Chunks written ahead of the HttpClient before the writer blocks
+    private static final int MAX_BUFFERED_CHUNKS = 16;
+
+    /**
+     * Writes the complete JSON body
+     */
+    @FunctionalInterface
+    interface Content {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private final Content content;
+    private final long contentLength;
+
+    GeminiRequestBody(Content content, long contentLength) {
+        this.content = content;
+        this.contentLength = contentLength;
+    }
+
+    public long contentLength() {
+        return contentLength;
+    }
+
+    /**
+     * Write the complete JSON body to the stream
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        content.writeTo(out);
+    }
+
+    HttpRequest.BodyPublisher toBodyPublisher() {
+        Flow.Publisher<ByteBuffer> publisher = subscriber -> {
+            SubmissionPublisher<ByteBuffer> chunks = new SubmissionPublisher<>(ForkJoinPool.commonPool(),
+                    MAX_BUFFERED_CHUNKS);
+            chunks.subscribe(subscriber);
+            Thread.ofVirtual().name("gemini-request-body").start(() -> {
+                try {
+                    writeTo(new ChunkOutputStream(chunks));
+                    chunks.close();
+                } catch (IOException | RuntimeException e) {
+                    chunks.closeExceptionally(e);
+                }
+            });
+        };
+        return HttpRequest.BodyPublishers.fromPublisher(publisher, contentLength);
+    }
+
+    /**
+     * Hands every write to the HttpClient as one chunk, blocking while MAX_BUFFERED_CHUNKS are pending
+     */
+    private static final class ChunkOutputStream extends OutputStream {
+
+        private final SubmissionPublisher<ByteBuffer> chunks;
+
+        ChunkOutputStream(SubmissionPublisher<ByteBuffer> chunks) {
+            this.chunks = chunks;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (!chunks.hasSubscribers()) {
+                throw new IOException("Gemini request was cancelled");
+            }
+            if (len > 0) {
+                chunks.submit(ByteBuffer.wrap(Arrays.copyOfRange(b, off, off + len)));
+            }
+        }
+
+        @Override
+        public void close() {
+            // Completion is signalled by the writer, which knows whether the body is complete
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.archie.ai.client;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes generateContent request bodies with Jackson's streaming generator.
+ * The image is base64-encoded by {@link JsonGenerator#writeBinary(java.io.InputStream, int)} straight
+ * into the HTTP body while it is sent; no base64 String or serialized copy of the body is built.
+ */
+@Component
+@RequiredArgsConstructor
+public class GeminiRequestWriter {
+
+    private static final String DEFAULT_MIME_TYPE = "image/png";
+    private static final byte[] NO_IMAGE = new byte[0];
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Request with the image held in memory
+     */
+    public GeminiRequestBody write(String prompt, byte[] imageData, String mimeType) {
+        return write(prompt, imageData, mimeType, null);
+    }
+
+    /**
+     * Request with the image held in memory, constraining the reply to the given responseSchema
+     */
+    public GeminiRequestBody write(String prompt, byte[] imageData, String mimeType, JsonNode responseSchema) {
+        if (imageData == null || imageData.length == 0) {
+            return write(prompt, responseSchema);
+        }
+        String imageMimeType = mimeType != null ? mimeType : DEFAULT_MIME_TYPE;
+        // The envelope is measured with an empty image; padded base64 adds 4 bytes per started 3-byte group
+        long contentLength = measure(out -> writeBody(out, prompt, NO_IMAGE, imageMimeType, responseSchema))
+                + (imageData.length + 2L) / 3 * 4;
+        return new GeminiRequestBody(out -> writeBody(out, prompt, imageData, imageMimeType, responseSchema),
+                contentLength);
+    }
+
+    /**
+     * Text-only request
+     */
+    public GeminiRequestBody write(String prompt) {
+        return write(prompt, (JsonNode) null);
+    }
+
+    /**
+     * Text-only request constrained to the given responseSchema
+     */
+    public GeminiRequestBody write(String prompt, JsonNode responseSchema) {
+        GeminiRequestBody.Content content = out -> writeBody(out, prompt, null, null, responseSchema);
+        return new GeminiRequestBody(content, measure(content));
+    }
+
+    private long measure(GeminiRequestBody.Content content) {
+        try (CountingOutputStream counter = new CountingOutputStream(NullOutputStream.INSTANCE)) {
+            content.writeTo(counter);
+            return counter.getByteCount();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write Gemini request body", e);
+        }
+    }
+
+    private void writeBody(OutputStream out, String prompt, byte[] imageData, String mimeType,
+            JsonNode responseSchema) throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.writeStartObject();
+            writeGenerationConfig(generator, responseSchema);
+            generator.writeArrayFieldStart("contents");
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("parts");
+
+            if (imageData != null) {
+                generator.writeStartObject();
+                generator.writeObjectFieldStart("inlineData");
+                generator.writeStringField("mimeType", mimeType);
+                generator.writeFieldName("data");
+                generator.writeBinary(new ByteArrayInputStream(imageData), imageData.length);
+                generator.writeEndObject();
+                generator.writeEndObject();
+            }
+
+            generator.writeStartObject();
+            generator.writeStringField("text", prompt);
+            generator.writeEndObject();
+
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    private void writeGenerationConfig(JsonGenerator generator, JsonNode responseSchema) throws IOException {
+        generator.writeObjectFieldStart("generationConfig");
+        generator.writeNumberField("temperature", 0.3);
+        generator.writeNumberField("maxOutputTokens", 8192);
+        if (responseSchema != null) {
+            // Structured output: the reply is bare JSON matching the schema, no markdown fences
+            generator.writeStringField("responseMimeType", "application/json");
+            generator.writeFieldName("responseSchema");
+            objectMapper.writeTree(generator, responseSchema);
+        }
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,24 @@
+package com.archie.ai.client;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Gemini cannot take the call right now: the local queue is full or upstream kept
+ * answering 429/503 after all retries. Maps to HTTP 503 for API callers.
+ */
+@Getter
+public class GeminiUnavailableException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public GeminiUnavailableException(String message, Duration retryAfter) {
+        this(message, retryAfter, null);
+    }
+
+    public GeminiUnavailableException(String message, Duration retryAfter, Throwable cause) {
+        super(message, cause);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,162 @@
+package com.archie.ai.client;
+
+import com.archie.config.ArchieConfig;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker for one Gemini model.
+ * Opens when the failure rate or slow-call rate over the last windowSize calls crosses its
+ * threshold, rejects calls while open, then lets a few trial calls through (half-open)
+ * to decide whether to close again.
+ */
+@Slf4j
+public class ModelCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String model;
+    private final ArchieConfig.CircuitBreaker settings;
+    private final LongSupplier nanoClock;
+
+    // Ring buffer of recent outcomes
+    private final boolean[] failed;
+    private final boolean[] slow;
+    private int recorded;
+    private int next;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private long openUntil;
+    private int trialsStarted;
+    private int trialsSucceeded;
+
+    /**
+     * @param nanoClock monotonic time in nanoseconds, System::nanoTime outside of tests
+     */
+    public ModelCircuitBreaker(String model, ArchieConfig.CircuitBreaker settings, LongSupplier nanoClock) {
+        this.model = model;
+        this.settings = settings;
+        this.nanoClock = nanoClock;
+        int windowSize = Math.max(1, settings.getWindowSize());
+        this.failed = new boolean[windowSize];
+        this.slow = new boolean[windowSize];
+    }
+
+    /**
+     * Ask permission for a call; every granted call must be reported via onSuccess, onFailure or onIgnored
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (nanoClock.getAsLong() - openUntil < 0) {
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialsStarted >= settings.getHalfOpenCalls()) {
+                return false;
+            }
+            trialsStarted++;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess(long durationNanos) {
+        boolean isSlow = durationNanos >= settings.getSlowCallDuration().toNanos();
+        if (state == State.HALF_OPEN) {
+            if (isSlow) {
+                open();
+            } else if (++trialsSucceeded >= settings.getHalfOpenCalls()) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        record(false, isSlow);
+    }
+
+    public synchronized void onFailure(long durationNanos) {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true, durationNanos >= settings.getSlowCallDuration().toNanos());
+    }
+
+    /**
+     * Release the permit of a call whose outcome says nothing about the model's health
+     */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN && trialsStarted > trialsSucceeded) {
+            trialsStarted--;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Time until the breaker will admit trial calls again, zero unless open
+     */
+    public synchronized Duration remainingOpen() {
+        if (state != State.OPEN) {
+            return Duration.ZERO;
+        }
+        return Duration.ofNanos(Math.max(0, openUntil - nanoClock.getAsLong()));
+    }
+
+    private void record(boolean isFailure, boolean isSlow) {
+        if (state != State.CLOSED) {
+            return; // late result of a call admitted before the breaker opened
+        }
+        if (recorded == failed.length) {
+            failures -= failed[next] ? 1 : 0;
+            slowCalls -= slow[next] ? 1 : 0;
+        } else {
+            recorded++;
+        }
+        failed[next] = isFailure;
+        slow[next] = isSlow;
+        failures += isFailure ? 1 : 0;
+        slowCalls += isSlow ? 1 : 0;
+        next = (next + 1) % failed.length;
+
+        if (recorded < Math.min(settings.getMinimumCalls(), failed.length)) {
+            return;
+        }
+        int failureRate = failures * 100 / recorded;
+        int slowCallRate = slowCalls * 100 / recorded;
+        if (failureRate >= settings.getFailureRateThreshold()
+                || slowCallRate >= settings.getSlowCallRateThreshold()) {
+            log.warn("Opening circuit for model {}: failure rate {}%, slow call rate {}% over {} calls",
+                    model, failureRate, slowCallRate, recorded);
+            open();
+        }
+    }
+
+    private void open() {
+        openUntil = nanoClock.getAsLong() + settings.getOpenDuration().toNanos();
+        transitionTo(State.OPEN);
+    }
+
+    private void transitionTo(State newState) {
+        if (state != newState) {
+            log.info("Circuit for model {}: {} -> {}", model, state, newState);
+        }
+        state = newState;
+        trialsStarted = 0;
+        trialsSucceeded = 0;
+        if (newState == State.CLOSED) {
+            recorded = 0;
+            next = 0;
+            failures = 0;
+            slowCalls = 0;
+        }
+    }
+}
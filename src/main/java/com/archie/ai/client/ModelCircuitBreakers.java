@@ -0,0 +1,66 @@
+package com.archie.ai.client;
+
+import com.archie.config.ArchieConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * One circuit breaker per Gemini model, created on first use.
+ * State is exported as gemini.circuit.state (0 closed, 1 half-open, 2 open) tagged by model.
+ */
+@Component
+public class ModelCircuitBreakers {
+
+    private final ArchieConfig.CircuitBreaker settings;
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier nanoClock;
+    private final Map<String, ModelCircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ModelCircuitBreakers(ArchieConfig config, MeterRegistry meterRegistry) {
+        this(config, meterRegistry, System::nanoTime);
+    }
+
+    /**
+     * @param nanoClock monotonic time in nanoseconds for open durations and call timing
+     */
+    public ModelCircuitBreakers(ArchieConfig config, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.settings = config.getAnalysis().getCircuitBreaker();
+        this.meterRegistry = meterRegistry;
+        this.nanoClock = nanoClock;
+    }
+
+    public boolean isEnabled() {
+        return settings.isEnabled();
+    }
+
+    /**
+     * Current time of the breakers' clock, for measuring the calls they judge
+     */
+    public long nanoTime() {
+        return nanoClock.getAsLong();
+    }
+
+    public ModelCircuitBreaker forModel(String model) {
+        return breakers.computeIfAbsent(model, this::create);
+    }
+
+    private ModelCircuitBreaker create(String model) {
+        ModelCircuitBreaker breaker = new ModelCircuitBreaker(model, settings, nanoClock);
+        Gauge.builder("gemini.circuit.state", breaker, b -> switch (b.getState()) {
+            case CLOSED -> 0;
+            case HALF_OPEN -> 1;
+            case OPEN -> 2;
+        })
+                .tag("model", model)
+                .description("Circuit breaker state per Gemini model")
+                .register(meterRegistry);
+        return breaker;
+    }
+}
@@ -37,6 +37,7 @@ public class DiagramAnalysisResult {
         private List<AttributeMetadata> attributes;
         private List<MethodMetadata> methods;
         private List<String> constraints;
+        private CacheMetadata cache; // only when the instructions ask to cache this entity
     }
 
     @Data
@@ -54,6 +55,15 @@ public class DiagramAnalysisResult {
         private String description;
     }
 
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CacheMetadata {
+        private Integer ttlSeconds;
+        private Integer maxSize;
+    }
+
     @Data
     @Builder
     @NoArgsConstructor
@@ -0,0 +1,21 @@
+package com.archie.ai.parser;
+
+import com.archie.ai.model.DiagramAnalysisResult;
+
+/**
+ * Callback for analysis fragments that become available while Gemini is still streaming
+ */
+public interface AnalysisStreamListener {
+
+    AnalysisStreamListener NONE = new AnalysisStreamListener() {
+    };
+
+    default void onEntity(DiagramAnalysisResult.EntityMetadata entity) {
+    }
+
+    default void onRelationship(DiagramAnalysisResult.RelationshipMetadata relationship) {
+    }
+
+    default void onService(DiagramAnalysisResult.ServiceMetadata service) {
+    }
+}
@@ -0,0 +1,234 @@
+package com.archie.ai.parser;
+
+import com.archie.ai.model.DiagramAnalysisResult;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+ * Incremental parser for streamed Gemini analysis output.
+ * Text chunks are pushed into Jackson's non-blocking parser; every top-level entity,
+ * relationship and service is materialized and published as soon as its closing brace arrives.
+ * One instance per response, not thread-safe.
+ */
+@Slf4j
+public class StreamingAnalysisParser {
+
+    private final ObjectMapper objectMapper;
+    private final AnalysisStreamListener listener;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final StringBuilder rawText = new StringBuilder();
+    private final DiagramAnalysisResult result;
+
+    private boolean rootStarted;
+    private boolean rootClosed;
+    private IOException failure;
+
+    // Tokens of the fragment currently being collected
+    private TokenBuffer capture;
+    private String captureField;
+    private int captureDepth;
+
+    public StreamingAnalysisParser(ObjectMapper objectMapper, AnalysisStreamListener listener) {
+        this.objectMapper = objectMapper;
+        this.listener = listener;
+        try {
+            this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot create non-blocking JSON parser", e);
+        }
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        this.result = DiagramAnalysisResult.builder()
+                .entities(new ArrayList<>())
+                .relationships(new ArrayList<>())
+                .services(new ArrayList<>())
+                .build();
+    }
+
+    /**
+     * Consume the next text fragment of the model output
+     */
+    public void feed(String text) {
+        rawText.append(text);
+        if (rootClosed || failure != null) {
+            return;
+        }
+
+        String json = text;
+        if (!rootStarted) {
+            // Skip markdown fences or any preamble before the JSON object
+            int start = text.indexOf('{');
+            if (start < 0) {
+                return;
+            }
+            json = text.substring(start);
+            rootStarted = true;
+        }
+
+        try {
+            byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+            feeder.feedInput(bytes, 0, bytes.length);
+            drain();
+        } catch (IOException e) {
+            log.debug("Incremental parse failed: {}", e.getMessage());
+            failure = e;
+        }
+    }
+
+    /**
+     * Complete parsing once the stream has ended
+     */
+    public DiagramAnalysisResult finish() {
+        if (failure == null && rootStarted && !rootClosed) {
+            try {
+                feeder.endOfInput();
+                drain();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        if (failure != null) {
+            throw new IllegalArgumentException("Malformed streamed JSON: " + failure.getMessage(), failure);
+        }
+        if (!rootClosed) {
+            throw new IllegalArgumentException("Streamed response ended before the JSON object was complete");
+        }
+        if (result.getEntities().isEmpty()) {
+            throw new IllegalArgumentException("No entities found in diagram analysis");
+        }
+
+        result.setRawResponse(rawText.toString());
+        return result;
+    }
+
+    public String getRawText() {
+        return rawText.toString();
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while (!rootClosed && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            handle(token);
+        }
+    }
+
+    private void handle(JsonToken token) throws IOException {
+        if (capture != null) {
+            capture.copyCurrentEvent(parser);
+            if (token.isStructStart()) {
+                captureDepth++;
+            } else if (token.isStructEnd() && --captureDepth == 0) {
+                publishCapture();
+            }
+            return;
+        }
+
+        JsonStreamContext context = parser.getParsingContext();
+
+        if (token.isStructStart()) {
+            JsonStreamContext enclosing = context.getParent();
+            if (enclosing.inRoot()) {
+                return; // the root object itself
+            }
+            if (token == JsonToken.START_ARRAY && isTopLevelObject(enclosing)) {
+                return; // entities/relationships/services array: capture its elements one by one
+            }
+
+            String field = null;
+            if (isTopLevelObject(enclosing)) {
+                field = enclosing.getCurrentName();
+            } else if (enclosing.inArray() && isTopLevelObject(enclosing.getParent())) {
+                field = enclosing.getParent().getCurrentName();
+            }
+            startCapture(field);
+            return;
+        }
+
+        if (token == JsonToken.END_OBJECT && context.inRoot()) {
+            rootClosed = true;
+            return;
+        }
+
+        if (token.isScalarValue() && isTopLevelObject(context)) {
+            setScalar(context.getCurrentName(), parser.getValueAsString());
+        }
+    }
+
+    private boolean isTopLevelObject(JsonStreamContext context) {
+        return context.inObject() && context.getParent() != null && context.getParent().inRoot();
+    }
+
+    private void startCapture(String field) throws IOException {
+        capture = new TokenBuffer(objectMapper, false);
+        captureField = field;
+        captureDepth = 1;
+        capture.copyCurrentEvent(parser);
+    }
+
+    private void publishCapture() throws IOException {
+        TokenBuffer buffer = capture;
+        String field = captureField;
+        capture = null;
+        captureField = null;
+
+        if (field == null) {
+            return;
+        }
+
+        switch (field) {
+            case "entities" -> {
+                DiagramAnalysisResult.EntityMetadata entity = read(buffer,
+                        DiagramAnalysisResult.EntityMetadata.class);
+                result.getEntities().add(entity);
+                listener.onEntity(entity);
+            }
+            case "relationships" -> {
+                DiagramAnalysisResult.RelationshipMetadata relationship = read(buffer,
+                        DiagramAnalysisResult.RelationshipMetadata.class);
+                result.getRelationships().add(relationship);
+                listener.onRelationship(relationship);
+            }
+            case "services" -> {
+                DiagramAnalysisResult.ServiceMetadata service = read(buffer,
+                        DiagramAnalysisResult.ServiceMetadata.class);
+                result.getServices().add(service);
+                listener.onService(service);
+            }
+            case "flowchartLogic" -> result.setFlowchartLogic(read(buffer,
+                    DiagramAnalysisResult.FlowchartLogic.class));
+            default -> {
+                // Unknown fragment, ignore
+            }
+        }
+    }
+
+    private <T> T read(TokenBuffer buffer, Class<T> type) throws IOException {
+        try (JsonParser fragment = buffer.asParser()) {
+            return objectMapper.readValue(fragment, type);
+        }
+    }
+
+    private void setScalar(String field, String value) {
+        if (field == null) {
+            return;
+        }
+        switch (field) {
+            case "diagramType" -> result.setDiagramType(value);
+            case "projectName" -> result.setProjectName(value);
+            case "basePackage" -> result.setBasePackage(value);
+            default -> {
+                // Unknown scalar, ignore
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.archie.ai.prompt;
+
+import com.archie.ai.model.DiagramAnalysisResult;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Gemini responseSchema derived from the {@link DiagramAnalysisResult} classes, so the
+ * structured-output contract always matches what the result is deserialized into.
+ * Fields are listed in declaration order (propertyOrdering), scalars before the large arrays.
+ */
+@Component
+public class AnalysisResponseSchema {
+
+    // Filled in locally, never requested from the model
+    private static final Set<String> EXCLUDED_FIELDS = Set.of("rawResponse");
+    private static final Set<String> REQUIRED_FIELDS = Set.of("diagramType", "entities", "name", "type",
+            "sourceEntity", "targetEntity");
+
+    private final ObjectMapper objectMapper;
+    private final JsonNode schema;
+
+    public AnalysisResponseSchema(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.schema = objectSchema(DiagramAnalysisResult.class);
+    }
+
+    public JsonNode get() {
+        return schema;
+    }
+
+    private ObjectNode objectSchema(Class<?> type) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("type", "OBJECT");
+        ObjectNode properties = node.putObject("properties");
+        ArrayNode ordering = objectMapper.createArrayNode();
+        ArrayNode required = objectMapper.createArrayNode();
+
+        for (Field field : type.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || EXCLUDED_FIELDS.contains(field.getName())) {
+                continue;
+            }
+            ObjectNode property = schemaFor(field.getGenericType());
+            if ("OBJECT".equals(property.path("type").asText()) && !REQUIRED_FIELDS.contains(field.getName())) {
+                // Optional nested objects (e.g. an entity's cache spec) are null when absent, not an empty object
+                property.put("nullable", true);
+            }
+            properties.set(field.getName(), property);
+            ordering.add(field.getName());
+            if (REQUIRED_FIELDS.contains(field.getName())) {
+                required.add(field.getName());
+            }
+        }
+
+        node.set("propertyOrdering", ordering);
+        if (!required.isEmpty()) {
+            node.set("required", required);
+        }
+        return node;
+    }
+
+    private ObjectNode schemaFor(Type type) {
+        if (type instanceof ParameterizedType parameterized
+                && Collection.class.isAssignableFrom((Class<?>) parameterized.getRawType())) {
+            ObjectNode node = objectMapper.createObjectNode();
+            node.put("type", "ARRAY");
+            node.set("items", schemaFor(parameterized.getActualTypeArguments()[0]));
+            return node;
+        }
+
+        Class<?> raw = (Class<?>) type;
+        ObjectNode node = objectMapper.createObjectNode();
+        if (raw == String.class) {
+            node.put("type", "STRING");
+        } else if (raw == boolean.class || raw == Boolean.class) {
+            node.put("type", "BOOLEAN");
+        } else if (raw == int.class || raw == Integer.class || raw == long.class || raw == Long.class) {
+            node.put("type", "INTEGER");
+            node.put("nullable", !raw.isPrimitive());
+        } else if (raw == double.class || raw == Double.class || raw == float.class || raw == Float.class) {
+            node.put("type", "NUMBER");
+        } else if (raw.isEnum()) {
+            node.put("type", "STRING");
+            ArrayNode values = node.putArray("enum");
+            for (Object constant : raw.getEnumConstants()) {
+                values.add(((Enum<?>) constant).name());
+            }
+        } else {
+            return objectSchema(raw);
+        }
+        return node;
+    }
+}
@@ -78,7 +78,8 @@ public class GeminiPromptBuilder {
                   "visibility": "public"
                 }
               ],
-              "constraints": []
+              "constraints": [],
+              "cache": null
             }
           ],
           "relationships": [
@@ -130,6 +131,8 @@ public class GeminiPromptBuilder {
         - Use standard JPA types: ONE_TO_ONE, ONE_TO_MANY, MANY_TO_ONE, MANY_TO_MANY
         - Entity names should be singular PascalCase
         - Attribute names should be camelCase
+        - Leave "cache" null unless the additional context asks to cache an entity; then set
+          {"ttlSeconds": ..., "maxSize": ...} from the values it gives, null for values it does not give
         - If diagram is unclear, make reasonable inferences
         - ALWAYS include at least one entity, even if extracted from flowchart context
 
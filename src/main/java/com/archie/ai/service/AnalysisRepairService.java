@@ -0,0 +1,196 @@
+package com.archie.ai.service;
+
+import com.archie.ai.client.GeminiClient;
+import com.archie.ai.client.GeminiRequestWriter;
+import com.archie.ai.model.DiagramAnalysisResult;
+import com.archie.config.ArchieConfig;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Fixes individual broken entities and relationships with a small text-only follow-up prompt
+ * instead of re-running the whole image analysis
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AnalysisRepairService {
+
+    private final AnalysisValidator validator;
+    private final GeminiClient geminiClient;
+    private final GeminiRequestWriter requestWriter;
+    private final ObjectMapper objectMapper;
+    private final ArchieConfig config;
+
+    /**
+     * Validate the result and, if some fragments are broken, ask Gemini to fix only those.
+     * Never fails: when the repair call does not help the original result is returned.
+     */
+    public CompletableFuture<DiagramAnalysisResult> repairIfNeeded(String model, DiagramAnalysisResult result) {
+        ArchieConfig.Analysis settings = config.getAnalysis();
+        if (!settings.isRepairEnabled()) {
+            return CompletableFuture.completedFuture(result);
+        }
+
+        List<AnalysisValidator.Issue> issues = validator.validate(result);
+        if (issues.isEmpty()) {
+            return CompletableFuture.completedFuture(result);
+        }
+        if (issues.size() > settings.getMaxRepairFragments()) {
+            log.warn("{} broken fragments exceed the repair limit of {}, keeping analysis as is",
+                    issues.size(), settings.getMaxRepairFragments());
+            return CompletableFuture.completedFuture(dropDanglingRelationships(result));
+        }
+
+        log.info("Repairing {} broken fragments of the analysis with a text-only prompt", issues.size());
+        long startTime = System.currentTimeMillis();
+        String prompt;
+        try {
+            prompt = buildRepairPrompt(result, issues);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.completedFuture(dropDanglingRelationships(result));
+        }
+
+        return geminiClient.generateText(model, requestWriter.write(prompt))
+                .thenApply(text -> {
+                    DiagramAnalysisResult repaired = merge(result, issues, text);
+                    log.info("Repair finished in {}ms, {} issues remaining", System.currentTimeMillis() - startTime,
+                            validator.validate(repaired).size());
+                    return dropDanglingRelationships(repaired);
+                })
+                .exceptionally(e -> {
+                    log.warn("Repair prompt failed, keeping original analysis: {}", e.getMessage());
+                    return dropDanglingRelationships(result);
+                });
+    }
+
+    private String buildRepairPrompt(DiagramAnalysisResult result, List<AnalysisValidator.Issue> issues)
+            throws JsonProcessingException {
+        StringBuilder entities = new StringBuilder();
+        StringBuilder relationships = new StringBuilder();
+        for (AnalysisValidator.Issue issue : issues) {
+            if (issue.fragment() == AnalysisValidator.Fragment.ENTITY) {
+                entities.append("- Problem: ").append(issue.problem()).append('\n')
+                        .append(objectMapper.writeValueAsString(result.getEntities().get(issue.index())))
+                        .append('\n');
+            } else {
+                relationships.append("- Problem: ").append(issue.problem()).append('\n')
+                        .append(objectMapper.writeValueAsString(result.getRelationships().get(issue.index())))
+                        .append('\n');
+            }
+        }
+
+        List<String> names = result.getEntities().stream()
+                .filter(entity -> entity != null && entity.getName() != null)
+                .map(DiagramAnalysisResult.EntityMetadata::getName)
+                .toList();
+
+        return """
+                You previously analyzed an architectural diagram. Some fragments of your JSON answer are invalid.
+                Fix ONLY the fragments listed below and keep everything that is already correct unchanged.
+
+                Entities in the analysis: %s
+
+                Entities to fix:
+                %s
+                Relationships to fix:
+                %s
+                Rules:
+                - Every attribute needs a name and a Java type (String, Long, Integer, BigDecimal, LocalDateTime, Boolean, ...).
+                - sourceEntity and targetEntity must be one of the entity names above.
+                - type is one of ONE_TO_ONE, ONE_TO_MANY, MANY_TO_ONE, MANY_TO_MANY.
+                - Use null for a relationship that cannot be fixed.
+
+                Respond with JSON only, in this form, with the fixed fragments in the same order as listed:
+                {"entities": [...], "relationships": [...]}
+                """.formatted(String.join(", ", names),
+                entities.isEmpty() ? "(none)\n" : entities,
+                relationships.isEmpty() ? "(none)\n" : relationships);
+    }
+
+    private DiagramAnalysisResult merge(DiagramAnalysisResult result, List<AnalysisValidator.Issue> issues,
+            String text) {
+        int start = text.indexOf('{');
+        int end = text.lastIndexOf('}');
+        if (start < 0 || end < start) {
+            log.warn("Repair response contained no JSON object");
+            return result;
+        }
+
+        RepairResponse repair;
+        try {
+            repair = objectMapper.readValue(text.substring(start, end + 1), RepairResponse.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Could not parse repair response: {}", e.getMessage());
+            return result;
+        }
+
+        int entityPosition = 0;
+        int relationshipPosition = 0;
+        List<Integer> unfixableRelationships = new ArrayList<>();
+        for (AnalysisValidator.Issue issue : issues) {
+            if (issue.fragment() == AnalysisValidator.Fragment.ENTITY) {
+                DiagramAnalysisResult.EntityMetadata fixed = at(repair.getEntities(), entityPosition++);
+                if (fixed != null) {
+                    result.getEntities().set(issue.index(), fixed);
+                }
+            } else {
+                int position = relationshipPosition++;
+                DiagramAnalysisResult.RelationshipMetadata fixed = at(repair.getRelationships(), position);
+                if (fixed != null) {
+                    result.getRelationships().set(issue.index(), fixed);
+                } else if (repair.getRelationships() != null && position < repair.getRelationships().size()) {
+                    unfixableRelationships.add(issue.index());
+                }
+            }
+        }
+
+        // Remove explicit nulls from the highest index down so earlier indices stay valid
+        for (int i = unfixableRelationships.size() - 1; i >= 0; i--) {
+            result.getRelationships().remove((int) unfixableRelationships.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Relationships to unknown entities would generate code that does not compile
+     */
+    private DiagramAnalysisResult dropDanglingRelationships(DiagramAnalysisResult result) {
+        if (result.getRelationships() == null) {
+            return result;
+        }
+        Set<String> names = validator.entityNames(result);
+        int before = result.getRelationships().size();
+        result.getRelationships().removeIf(relationship -> relationship == null
+                || relationship.getSourceEntity() == null || relationship.getTargetEntity() == null
+                || !names.contains(relationship.getSourceEntity().trim().toLowerCase(Locale.ROOT))
+                || !names.contains(relationship.getTargetEntity().trim().toLowerCase(Locale.ROOT)));
+        if (result.getRelationships().size() < before) {
+            log.warn("Dropped {} relationships that reference unknown entities",
+                    before - result.getRelationships().size());
+        }
+        return result;
+    }
+
+    private <T> T at(List<T> list, int index) {
+        return list != null && index < list.size() ? list.get(index) : null;
+    }
+
+    @Data
+    @NoArgsConstructor
+    static class RepairResponse {
+        private List<DiagramAnalysisResult.EntityMetadata> entities;
+        private List<DiagramAnalysisResult.RelationshipMetadata> relationships;
+    }
+}
@@ -0,0 +1,114 @@
+package com.archie.ai.service;
+
+import com.archie.ai.model.DiagramAnalysisResult;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Finds the individual entities and relationships of an analysis that cannot be turned into code
+ */
+@Component
+public class AnalysisValidator {
+
+    public enum Fragment {
+        ENTITY, RELATIONSHIP
+    }
+
+    /**
+     * One broken fragment: its position in the entities or relationships list and what is wrong with it
+     */
+    public record Issue(Fragment fragment, int index, String problem) {
+    }
+
+    public List<Issue> validate(DiagramAnalysisResult result) {
+        List<Issue> issues = new ArrayList<>();
+        List<DiagramAnalysisResult.EntityMetadata> entities = result.getEntities() != null ? result.getEntities()
+                : List.of();
+        List<DiagramAnalysisResult.RelationshipMetadata> relationships = result.getRelationships() != null
+                ? result.getRelationships()
+                : List.of();
+
+        for (int i = 0; i < entities.size(); i++) {
+            String problem = validateEntity(entities.get(i));
+            if (problem != null) {
+                issues.add(new Issue(Fragment.ENTITY, i, problem));
+            }
+        }
+
+        Set<String> entityNames = entityNames(result);
+        for (int i = 0; i < relationships.size(); i++) {
+            String problem = validateRelationship(relationships.get(i), entityNames);
+            if (problem != null) {
+                issues.add(new Issue(Fragment.RELATIONSHIP, i, problem));
+            }
+        }
+        return issues;
+    }
+
+    /**
+     * Lower-cased names of all named entities
+     */
+    public Set<String> entityNames(DiagramAnalysisResult result) {
+        if (result.getEntities() == null) {
+            return Set.of();
+        }
+        return result.getEntities().stream()
+                .filter(entity -> entity != null && !isBlank(entity.getName()))
+                .map(entity -> entity.getName().trim().toLowerCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+    }
+
+    private String validateEntity(DiagramAnalysisResult.EntityMetadata entity) {
+        if (entity == null) {
+            return "entity is null";
+        }
+        List<String> problems = new ArrayList<>();
+        if (isBlank(entity.getName())) {
+            problems.add("entity has no name");
+        }
+        if (entity.getAttributes() == null || entity.getAttributes().isEmpty()) {
+            problems.add("entity has no attributes");
+        } else {
+            for (int i = 0; i < entity.getAttributes().size(); i++) {
+                DiagramAnalysisResult.AttributeMetadata attribute = entity.getAttributes().get(i);
+                if (attribute == null || isBlank(attribute.getName())) {
+                    problems.add("attribute #" + (i + 1) + " has no name");
+                } else if (isBlank(attribute.getType())) {
+                    problems.add("attribute '" + attribute.getName() + "' has no type");
+                }
+            }
+        }
+        return problems.isEmpty() ? null : String.join("; ", problems);
+    }
+
+    private String validateRelationship(DiagramAnalysisResult.RelationshipMetadata relationship,
+            Set<String> entityNames) {
+        if (relationship == null) {
+            return "relationship is null";
+        }
+        List<String> problems = new ArrayList<>();
+        if (!isKnown(relationship.getSourceEntity(), entityNames)) {
+            problems.add("sourceEntity '" + relationship.getSourceEntity() + "' does not match any entity");
+        }
+        if (!isKnown(relationship.getTargetEntity(), entityNames)) {
+            problems.add("targetEntity '" + relationship.getTargetEntity() + "' does not match any entity");
+        }
+        if (relationship.getType() == null) {
+            problems.add("relationship type is missing");
+        }
+        return problems.isEmpty() ? null : String.join("; ", problems);
+    }
+
+    private boolean isKnown(String name, Set<String> entityNames) {
+        return !isBlank(name) && entityNames.contains(name.trim().toLowerCase(Locale.ROOT));
+    }
+
+    private boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
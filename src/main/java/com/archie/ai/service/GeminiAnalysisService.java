@@ -1,17 +1,39 @@
 package com.archie.ai.service;
 
+import com.archie.ai.cache.AnalysisCacheKey;
+import com.archie.ai.cache.AnalysisResultCache;
+import com.archie.ai.cache.AnalysisSingleFlight;
+import com.archie.ai.client.GeminiApiException;
+import com.archie.ai.client.GeminiClient;
+import com.archie.ai.client.GeminiRequestBody;
+import com.archie.ai.client.GeminiRequestWriter;
+import com.archie.ai.client.GeminiUnavailableException;
+import com.archie.ai.client.ModelCircuitBreaker;
+import com.archie.ai.client.ModelCircuitBreakers;
 import com.archie.ai.model.DiagramAnalysisRequest;
 import com.archie.ai.model.DiagramAnalysisResult;
+import com.archie.ai.parser.AnalysisStreamListener;
+import com.archie.ai.parser.StreamingAnalysisParser;
+import com.archie.ai.prompt.AnalysisResponseSchema;
 import com.archie.ai.prompt.GeminiPromptBuilder;
+import com.archie.config.ArchieConfig;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Service for analyzing architectural diagrams using Google Gemini AI
@@ -23,20 +45,40 @@ public class GeminiAnalysisService {
 
     private final GeminiPromptBuilder promptBuilder;
     private final ObjectMapper objectMapper;
-    private final RestTemplate restTemplate;
-
-    @Value("${gemini.api.key:${GEMINI_API_KEY:}}")
-    private String apiKey;
+    private final GeminiClient geminiClient;
+    private final GeminiRequestWriter requestWriter;
+    private final AnalysisResultCache analysisCache;
+    private final AnalysisSingleFlight singleFlight;
+    private final ModelCircuitBreakers circuitBreakers;
+    private final AnalysisResponseSchema responseSchema;
+    private final AnalysisRepairService repairService;
+    private final ModelRouter modelRouter;
+    private final MeterRegistry meterRegistry;
+    private final ArchieConfig config;
 
     @Value("${gemini.model:${GEMINI_MODEL:gemini-2.0-flash}}")
     private String model;
 
-    private static final String GEMINI_API_URL = "https://generativelanguage.googleapis.com/v1beta/models/%s:generateContent?key=%s";
+    @Value("${gemini.fallback-model:${GEMINI_FALLBACK_MODEL:}}")
+    private String fallbackModel;
 
-    public GeminiAnalysisService(GeminiPromptBuilder promptBuilder, ObjectMapper objectMapper) {
+    public GeminiAnalysisService(GeminiPromptBuilder promptBuilder, ObjectMapper objectMapper,
+            GeminiClient geminiClient, GeminiRequestWriter requestWriter, AnalysisResultCache analysisCache,
+            AnalysisSingleFlight singleFlight, ModelCircuitBreakers circuitBreakers,
+            AnalysisResponseSchema responseSchema, AnalysisRepairService repairService, ModelRouter modelRouter,
+            MeterRegistry meterRegistry, ArchieConfig config) {
         this.promptBuilder = promptBuilder;
         this.objectMapper = objectMapper;
-        this.restTemplate = new RestTemplate();
+        this.geminiClient = geminiClient;
+        this.requestWriter = requestWriter;
+        this.analysisCache = analysisCache;
+        this.singleFlight = singleFlight;
+        this.circuitBreakers = circuitBreakers;
+        this.responseSchema = responseSchema;
+        this.repairService = repairService;
+        this.modelRouter = modelRouter;
+        this.meterRegistry = meterRegistry;
+        this.config = config;
     }
 
     /**
@@ -45,127 +87,324 @@ public class GeminiAnalysisService {
      */
     public DiagramAnalysisResult analyzeDiagram(DiagramAnalysisRequest request) {
         try {
-            log.info("Starting diagram analysis for file: {}", request.getImageFileName());
+            return analyzeDiagramAsync(request, route(request)).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw cause instanceof RuntimeException runtimeException
+                    ? runtimeException
+                    : new RuntimeException(cause.getMessage(), cause);
+        }
+    }
 
-            // Build prompt
-            String promptText = promptBuilder.buildPromptWithContext(request.getAdditionalInstructions());
+    /**
+     * Non-blocking variant of {@link #analyzeDiagram}.
+     * The Gemini call runs on a virtual thread; no caller thread is held while waiting.
+     */
+    public CompletableFuture<DiagramAnalysisResult> analyzeDiagramAsync(DiagramAnalysisRequest request,
+            ModelRouter.Route route) {
+        return analyze(request, route, config.getAnalysis().isStreaming() ? AnalysisStreamListener.NONE : null);
+    }
 
-            // Full prompt for Gemini vision analysis
-            String fullPrompt = "Analyze the uploaded architectural diagram image and extract all entities, their attributes, and relationships.\n\n"
-                    +
-                    promptText;
+    /**
+     * Streaming variant using streamGenerateContent.
+     * Entities and relationships are handed to the listener as soon as they are parsed,
+     * long before the full response has arrived.
+     */
+    public CompletableFuture<DiagramAnalysisResult> analyzeDiagramStreaming(DiagramAnalysisRequest request,
+            ModelRouter.Route route, AnalysisStreamListener listener) {
+        return analyze(request, route, listener);
+    }
 
-            // Call Gemini API
-            log.debug("Sending request to Gemini API (model: {})...", model);
-            String response = callGeminiApi(fullPrompt, request.getImageData(), request.getImageMimeType());
+    /**
+     * Model choice for the request; decided once per request (it reads the image header)
+     * and handed to the cache-key and analysis methods
+     */
+    public ModelRouter.Route route(DiagramAnalysisRequest request) {
+        return modelRouter.route(request, model);
+    }
 
-            log.debug("Received response from Gemini: {}", response);
+    /**
+     * Key under which the analysis of this request is cached
+     */
+    public String cacheKey(DiagramAnalysisRequest request, ModelRouter.Route route) {
+        return AnalysisCacheKey.of(request.getImageData(), request.getAdditionalInstructions(), route.model());
+    }
 
-            // Parse JSON response
-            DiagramAnalysisResult result = parseAIResponse(response);
-            result.setRawResponse(response);
+    /**
+     * Key of the request's instructions and model without the image; a near-duplicate's analysis
+     * is only reused for a request with the same context
+     */
+    public String reuseContext(DiagramAnalysisRequest request, ModelRouter.Route route) {
+        return AnalysisCacheKey.context(request.getAdditionalInstructions(), route.model());
+    }
 
-            log.info("Successfully analyzed diagram. Found {} entities and {} relationships",
-                    result.getEntities() != null ? result.getEntities().size() : 0,
-                    result.getRelationships() != null ? result.getRelationships().size() : 0);
+    /**
+     * Previously computed analysis for a cache key, if still cached
+     */
+    public Optional<DiagramAnalysisResult> findCached(String cacheKey) {
+        return analysisCache.get(cacheKey);
+    }
 
-            return result;
+    private CompletableFuture<DiagramAnalysisResult> analyze(DiagramAnalysisRequest request, ModelRouter.Route route,
+            AnalysisStreamListener listener) {
+        try {
+            log.info("Starting diagram analysis for file: {}", request.getImageFileName());
+
+            // Same image, instructions and model always yield the stored result
+            String cacheKey = cacheKey(request, route);
+            Optional<DiagramAnalysisResult> cached = analysisCache.get(cacheKey);
+            if (cached.isPresent()) {
+                log.info("Returning cached analysis for file: {}", request.getImageFileName());
+                if (listener != null) {
+                    replay(cached.get(), listener);
+                }
+                return CompletableFuture.completedFuture(cached.get());
+            }
+
+            // Identical requests already in flight share one Gemini call
+            AtomicBoolean leader = new AtomicBoolean();
+            CompletableFuture<DiagramAnalysisResult> flight = singleFlight.execute(cacheKey, () -> {
+                leader.set(true);
+                return withDeadline(callGuarded(request, listener, route.model()));
+            });
+            flight = recordRoute(route, flight);
+            if (!leader.get() && listener != null) {
+                log.info("Coalesced analysis for file: {}", request.getImageFileName());
+                return flight.thenApply(result -> {
+                    replay(result, listener);
+                    return result;
+                });
+            }
+            return flight;
 
         } catch (Exception e) {
             log.error("Error analyzing diagram: {}", e.getMessage(), e);
-            throw new RuntimeException("Failed to analyze diagram: " + e.getMessage(), e);
+            return CompletableFuture.failedFuture(
+                    new RuntimeException("Failed to analyze diagram: " + e.getMessage(), e));
         }
     }
 
     /**
-     * Call Gemini API with text and optional image
+     * Fail the analysis with 503 once the client deadline has passed, so the caller is answered before
+     * the async request times out; the Gemini call itself stops retrying at the same deadline
+     */
+    private CompletableFuture<DiagramAnalysisResult> withDeadline(CompletableFuture<DiagramAnalysisResult> analysis) {
+        Duration deadline = config.getAnalysis().getClient().getDeadline();
+        return analysis.orTimeout(deadline.toMillis(), TimeUnit.MILLISECONDS)
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof TimeoutException) {
+                        throw new CompletionException(new GeminiUnavailableException(
+                                "Gemini analysis did not finish within " + deadline.toSeconds() + "s", null));
+                    }
+                    throw e instanceof CompletionException completion ? completion : new CompletionException(e);
+                });
+    }
+
+    /**
+     * Route the call through the model's circuit breaker, switching to the fallback model
+     * or failing fast while the primary circuit is open
      */
-    private String callGeminiApi(String prompt, byte[] imageData, String mimeType) {
-        String url = String.format(GEMINI_API_URL, model, apiKey);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-
-        // Build request body
-        Map<String, Object> requestBody = new HashMap<>();
-        List<Map<String, Object>> contents = new ArrayList<>();
-        Map<String, Object> content = new HashMap<>();
-        List<Map<String, Object>> parts = new ArrayList<>();
-
-        // Add image part if provided
-        if (imageData != null && imageData.length > 0) {
-            Map<String, Object> imagePart = new HashMap<>();
-            Map<String, Object> inlineData = new HashMap<>();
-            inlineData.put("mimeType", mimeType != null ? mimeType : "image/png");
-            inlineData.put("data", Base64.getEncoder().encodeToString(imageData));
-            imagePart.put("inlineData", inlineData);
-            parts.add(imagePart);
+    private CompletableFuture<DiagramAnalysisResult> callGuarded(DiagramAnalysisRequest request,
+            AnalysisStreamListener listener, String model) {
+        if (!circuitBreakers.isEnabled()) {
+            return callGemini(request, listener, model);
         }
 
-        // Add text part
-        Map<String, Object> textPart = new HashMap<>();
-        textPart.put("text", prompt);
-        parts.add(textPart);
+        String selectedModel = model;
+        ModelCircuitBreaker breaker = circuitBreakers.forModel(model);
+        if (!breaker.tryAcquire()) {
+            ModelCircuitBreaker fallback = fallbackModel == null || fallbackModel.isBlank()
+                    || fallbackModel.equals(model) ? null : circuitBreakers.forModel(fallbackModel);
+            if (fallback == null || !fallback.tryAcquire()) {
+                Duration retryAfter = breaker.remainingOpen();
+                log.warn("Circuit for model {} is open, rejecting analysis of {}", model, request.getImageFileName());
+                return CompletableFuture.failedFuture(new GeminiUnavailableException(
+                        "Gemini model " + model + " is temporarily unavailable, retry in "
+                                + Math.max(1, retryAfter.toSeconds()) + "s",
+                        retryAfter));
+            }
+            log.info("Circuit for model {} is open, using fallback model {}", model, fallbackModel);
+            selectedModel = fallbackModel;
+            breaker = fallback;
+        }
 
-        content.put("parts", parts);
-        contents.add(content);
-        requestBody.put("contents", contents);
+        ModelCircuitBreaker guardedBy = breaker;
+        long startNanos = circuitBreakers.nanoTime();
+        return callGemini(request, listener, selectedModel).whenComplete((result, error) -> {
+            long elapsed = circuitBreakers.nanoTime() - startNanos;
+            if (error == null) {
+                guardedBy.onSuccess(elapsed);
+            } else if (isUpstreamFailure(error)) {
+                guardedBy.onFailure(elapsed);
+            } else {
+                guardedBy.onIgnored();
+            }
+        });
+    }
 
-        // Add generation config
-        Map<String, Object> generationConfig = new HashMap<>();
-        generationConfig.put("temperature", 0.3);
-        generationConfig.put("maxOutputTokens", 8192);
-        requestBody.put("generationConfig", generationConfig);
+    /**
+     * Errors that say Gemini itself is unhealthy: 429/5xx responses and failed or timed out HTTP exchanges.
+     * Local limiter rejections (no upstream cause) and bad model output do not count.
+     */
+    private boolean isUpstreamFailure(Throwable error) {
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            if (current instanceof GeminiApiException apiException) {
+                return apiException.getStatusCode() == 429 || apiException.getStatusCode() >= 500;
+            }
+            if (current instanceof IOException && !(current instanceof JsonProcessingException)) {
+                return true;
+            }
+            if (current.getCause() == current) {
+                break;
+            }
+        }
+        return false;
+    }
 
+    private CompletableFuture<DiagramAnalysisResult> callGemini(DiagramAnalysisRequest request,
+            AnalysisStreamListener listener, String model) {
         try {
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.POST, entity, String.class);
-
-            // Parse response to extract text
-            JsonNode root = objectMapper.readTree(response.getBody());
-            JsonNode candidates = root.path("candidates");
-            if (candidates.isArray() && candidates.size() > 0) {
-                JsonNode firstCandidate = candidates.get(0);
-                JsonNode contentNode = firstCandidate.path("content");
-                JsonNode partsNode = contentNode.path("parts");
-                if (partsNode.isArray() && partsNode.size() > 0) {
-                    return partsNode.get(0).path("text").asText();
-                }
-            }
+            String cacheKey = AnalysisCacheKey.of(request.getImageData(), request.getAdditionalInstructions(), model);
 
-            throw new RuntimeException("Invalid response from Gemini API: " + response.getBody());
+            // Build prompt
+            String promptText = promptBuilder.buildPromptWithContext(request.getAdditionalInstructions());
+
+            // Full prompt for Gemini vision analysis
+            String fullPrompt = "Analyze the uploaded architectural diagram image and extract all entities, their attributes, and relationships.\n\n"
+                    +
+                    promptText;
+            JsonNode schema = isStructuredOutput() ? responseSchema.get() : null;
+            GeminiRequestBody requestBody = requestWriter.write(fullPrompt, request.getImageData(),
+                    request.getImageMimeType(), schema);
+
+            // Call Gemini API
+            log.debug("Sending request to Gemini API (model: {}, streaming: {})...", model, listener != null);
+            CompletableFuture<DiagramAnalysisResult> call = listener != null
+                    ? callGeminiStreaming(model, requestBody, listener)
+                    : geminiClient.generateText(model, requestBody)
+                            .thenApply(this::toAnalysisResult);
+
+            return call
+                    .thenCompose(result -> repairService.repairIfNeeded(model, result))
+                    .thenApply(result -> {
+                        log.info("Successfully analyzed diagram. Found {} entities and {} relationships",
+                                result.getEntities() != null ? result.getEntities().size() : 0,
+                                result.getRelationships() != null ? result.getRelationships().size() : 0);
+
+                        analysisCache.put(cacheKey, result);
+                        return result;
+                    })
+                    .exceptionally(e -> {
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        log.error("Error analyzing diagram: {}", cause.getMessage(), cause);
+                        throw new CompletionException(
+                                new RuntimeException("Failed to analyze diagram: " + cause.getMessage(), cause));
+                    });
 
         } catch (Exception e) {
-            log.error("Error calling Gemini API: {}", e.getMessage());
-            throw new RuntimeException("Gemini API call failed: " + e.getMessage(), e);
+            log.error("Error analyzing diagram: {}", e.getMessage(), e);
+            return CompletableFuture.failedFuture(
+                    new RuntimeException("Failed to analyze diagram: " + e.getMessage(), e));
         }
     }
 
     /**
-     * Parse AI's JSON response into structured result
+     * Stream the response through the incremental parser, falling back to a full
+     * parse of the accumulated text if the incremental pass could not complete
+     */
+    private CompletableFuture<DiagramAnalysisResult> callGeminiStreaming(String model,
+            GeminiRequestBody requestBody, AnalysisStreamListener listener) {
+        StreamingAnalysisParser parser = new StreamingAnalysisParser(objectMapper, listener);
+        return geminiClient.streamGenerateContent(model, requestBody, parser::feed)
+                .thenApply(ignored -> {
+                    try {
+                        DiagramAnalysisResult result = parser.finish();
+                        recordParse(true);
+                        return result;
+                    } catch (IllegalArgumentException e) {
+                        log.warn("Incremental parse incomplete ({}), parsing full response", e.getMessage());
+                        return toAnalysisResult(parser.getRawText());
+                    }
+                });
+    }
+
+    private void replay(DiagramAnalysisResult result, AnalysisStreamListener listener) {
+        if (result.getEntities() != null) {
+            result.getEntities().forEach(listener::onEntity);
+        }
+        if (result.getRelationships() != null) {
+            result.getRelationships().forEach(listener::onRelationship);
+        }
+        if (result.getServices() != null) {
+            result.getServices().forEach(listener::onService);
+        }
+    }
+
+    private DiagramAnalysisResult toAnalysisResult(String response) {
+        log.debug("Received response from Gemini: {}", response);
+
+        // Parse JSON response
+        DiagramAnalysisResult result = parseAIResponse(response);
+        result.setRawResponse(response);
+        return result;
+    }
+
+    /**
+     * Parse AI's JSON response into structured result.
+     * Structured output is bare JSON; free-form replies may wrap it in markdown fences or prose,
+     * so parsing starts at the first '{' and stops at the last '}' in a single pass.
      */
     private DiagramAnalysisResult parseAIResponse(String response) {
         try {
-            // Remove markdown code blocks if present
-            String cleanedResponse = response
-                    .replaceAll("```json\\s*", "")
-                    .replaceAll("```\\s*", "")
-                    .trim();
+            int start = response.indexOf('{');
+            int end = response.lastIndexOf('}');
+            if (start < 0 || end < start) {
+                throw new IllegalArgumentException("No JSON object in response");
+            }
 
             // Parse JSON
-            DiagramAnalysisResult result = objectMapper.readValue(cleanedResponse, DiagramAnalysisResult.class);
+            DiagramAnalysisResult result = objectMapper.readValue(response.substring(start, end + 1),
+                    DiagramAnalysisResult.class);
 
             // Validate result
             if (result.getEntities() == null || result.getEntities().isEmpty()) {
                 throw new IllegalArgumentException("No entities found in diagram analysis");
             }
 
+            recordParse(true);
             return result;
 
         } catch (Exception e) {
+            recordParse(false);
             log.error("Error parsing Gemini response: {}", e.getMessage());
             log.debug("Raw response: {}", response);
             throw new RuntimeException("Failed to parse AI response: " + e.getMessage(), e);
         }
     }
+
+    /**
+     * Per-route latency and outcome, to tune the routing thresholds
+     */
+    private CompletableFuture<DiagramAnalysisResult> recordRoute(ModelRouter.Route route,
+            CompletableFuture<DiagramAnalysisResult> flight) {
+        long startNanos = System.nanoTime();
+        return flight.whenComplete((result, error) -> Timer.builder("gemini.analysis.route")
+                .description("Analysis latency per complexity route")
+                .tag("route", route.name())
+                .tag("model", route.model())
+                .tag("outcome", error == null ? "success" : "failure")
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS));
+    }
+
+    private boolean isStructuredOutput() {
+        return config.getAnalysis().isStructuredOutput();
+    }
+
+    private void recordParse(boolean success) {
+        meterRegistry.counter("gemini.analysis.parse",
+                "outcome", success ? "success" : "failure",
+                "mode", isStructuredOutput() ? "structured" : "freeform").increment();
+    }
 }
@@ -0,0 +1,91 @@
+package com.archie.ai.service;
+
+import com.archie.ai.model.DiagramAnalysisRequest;
+import com.archie.config.ArchieConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Chooses the Gemini model per diagram from a cheap complexity estimate.
+ * Only the image header is read (dimensions); the compressed size after preprocessing stands in
+ * for edge density, since sparse sketches compress far better than dense ER diagrams.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ModelRouter {
+
+    public static final String SMALL_ROUTE = "small";
+    public static final String LARGE_ROUTE = "large";
+
+    private final ArchieConfig config;
+
+    /**
+     * Route decision with the inputs that led to it, for logging and metrics
+     */
+    public record Route(String name, String model, int width, int height, int imageBytes, int instructionChars) {
+    }
+
+    public Route route(DiagramAnalysisRequest request, String defaultModel) {
+        ArchieConfig.Routing settings = config.getAnalysis().getRouting();
+        byte[] data = request.getImageData();
+        int imageBytes = data != null ? data.length : 0;
+        int instructionChars = request.getAdditionalInstructions() != null
+                ? request.getAdditionalInstructions().trim().length()
+                : 0;
+
+        if (!settings.isEnabled() || settings.getSmallModel() == null || settings.getSmallModel().isBlank()) {
+            return new Route(LARGE_ROUTE, defaultModel, 0, 0, imageBytes, instructionChars);
+        }
+
+        // Unreadable headers (WebP, HEIC, corrupt data) give 0x0; without dimensions the diagram may be huge
+        int[] dimensions = readDimensions(data);
+        long pixels = (long) dimensions[0] * dimensions[1];
+        boolean small = pixels > 0
+                && imageBytes <= settings.getMaxSmallImageBytes()
+                && pixels <= settings.getMaxSmallPixels()
+                && instructionChars <= settings.getMaxSmallInstructionChars();
+
+        Route route = small
+                ? new Route(SMALL_ROUTE, settings.getSmallModel(), dimensions[0], dimensions[1], imageBytes,
+                        instructionChars)
+                : new Route(LARGE_ROUTE, defaultModel, dimensions[0], dimensions[1], imageBytes, instructionChars);
+        log.debug("Routing {} ({}x{}, {} bytes, {} instruction chars) to {} model {}",
+                request.getImageFileName(), route.width(), route.height(), imageBytes, instructionChars,
+                route.name(), route.model());
+        return route;
+    }
+
+    /**
+     * Width and height from the image header, or 0x0 if no reader understands the format
+     */
+    private int[] readDimensions(byte[] data) {
+        if (data == null || data.length == 0) {
+            return new int[] { 0, 0 };
+        }
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return new int[] { 0, 0 };
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                return new int[] { reader.getWidth(0), reader.getHeight(0) };
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("Cannot read image dimensions: {}", e.getMessage());
+            return new int[] { 0, 0 };
+        }
+    }
+}
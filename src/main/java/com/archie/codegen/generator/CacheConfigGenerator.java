@@ -0,0 +1,108 @@
+package com.archie.codegen.generator;
+
+import com.archie.ai.model.DiagramAnalysisResult;
+import com.archie.config.ArchieConfig;
+import com.squareup.javapoet.*;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.stereotype.Component;
+
+import javax.lang.model.element.Modifier;
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Generates the Spring Cache configuration of the project: one Caffeine cache per region of the
+ * cached entities, see {@link CacheRegions}
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheConfigGenerator {
+
+    // Not on Archie's own classpath
+    private static final ClassName CAFFEINE = ClassName.get("com.github.benmanes.caffeine.cache", "Caffeine");
+    private static final ClassName CAFFEINE_CACHE_MANAGER = ClassName.get("org.springframework.cache.caffeine",
+            "CaffeineCacheManager");
+
+    private final ArchieConfig config;
+
+    /**
+     * Whether the project uses Spring Cache at all
+     */
+    public boolean isEnabled(DiagramAnalysisResult analysisResult) {
+        return CacheRegions.isUsed(config.getGeneration(), analysisResult);
+    }
+
+    /**
+     * Generate CacheConfig.java for the project
+     */
+    public String generateCacheConfig(DiagramAnalysisResult analysisResult) {
+        return buildCacheConfigFile(analysisResult).toString();
+    }
+
+    /**
+     * Write the CacheConfig source straight to the output
+     */
+    public void writeCacheConfig(DiagramAnalysisResult analysisResult, Appendable out) throws IOException {
+        buildCacheConfigFile(analysisResult).writeTo(out);
+    }
+
+    private JavaFile buildCacheConfigFile(DiagramAnalysisResult analysisResult) {
+        try {
+            ArchieConfig.Generation settings = config.getGeneration();
+            CodeBlock.Builder regions = CodeBlock.builder();
+            int count = 0;
+            if (analysisResult.getEntities() != null) {
+                for (DiagramAnalysisResult.EntityMetadata entity : analysisResult.getEntities()) {
+                    if (!CacheRegions.isCached(settings, entity)) {
+                        continue;
+                    }
+                    for (CacheRegions.Region region : CacheRegions.regionsOf(settings, entity)) {
+                        regions.addStatement("cacheManager.registerCustomCache($S, $T.newBuilder()\n"
+                                + ".expireAfterWrite($T.ofSeconds($L))\n"
+                                + ".maximumSize($L)\n"
+                                + ".recordStats()\n"
+                                + ".build())",
+                                region.name(), CAFFEINE, Duration.class, region.ttlSeconds(), region.maxSize());
+                        count++;
+                    }
+                }
+            }
+            log.debug("Generating cache configuration with {} regions", count);
+
+            MethodSpec cacheRegions = MethodSpec.methodBuilder("cacheRegions")
+                    .addModifiers(Modifier.PUBLIC)
+                    .addAnnotation(Bean.class)
+                    .addJavadoc("Entity regions with their own TTL and size; "
+                            + "other caches use spring.cache.caffeine.spec\n")
+                    .returns(ParameterizedTypeName.get(ClassName.get(CacheManagerCustomizer.class),
+                            CAFFEINE_CACHE_MANAGER))
+                    .addCode("return cacheManager -> {\n$>")
+                    .addCode(regions.build())
+                    .addCode("$<};\n")
+                    .build();
+
+            TypeSpec cacheConfig = TypeSpec.classBuilder("CacheConfig")
+                    .addModifiers(Modifier.PUBLIC)
+                    .addAnnotation(Configuration.class)
+                    .addAnnotation(EnableCaching.class)
+                    .addJavadoc("Caffeine caches behind the @Cacheable controller reads\n")
+                    .addMethod(cacheRegions)
+                    .build();
+
+            return JavaFile.builder(analysisResult.getBasePackage() + ".config", cacheConfig)
+                    .addFileComment("Auto-generated by Archie - Blueprint to Boot")
+                    .indent("    ")
+                    .build();
+
+        } catch (Exception e) {
+            log.error("Error generating cache configuration: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to generate cache configuration: " + e.getMessage(), e);
+        }
+    }
+}
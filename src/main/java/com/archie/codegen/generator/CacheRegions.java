@@ -0,0 +1,74 @@
+package com.archie.codegen.generator;
+
+import com.archie.ai.model.DiagramAnalysisResult;
+import com.archie.config.ArchieConfig;
+import com.archie.config.CacheMode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Spring Cache regions of a generated entity: one keyed by primary key and one per lookup attribute.
+ * TTL and size come from the entity's cache spec in the analysis, else from archie.generation.
+ */
+public final class CacheRegions {
+
+    record Region(String name, long ttlSeconds, int maxSize) {
+    }
+
+    private CacheRegions() {
+    }
+
+    /**
+     * Whether any entity of the analysis is cached, i.e. whether the project needs Spring Cache at all
+     */
+    public static boolean isUsed(ArchieConfig.Generation settings, DiagramAnalysisResult analysisResult) {
+        if (settings.getCaching() == CacheMode.NONE || analysisResult.getEntities() == null) {
+            return false;
+        }
+        return analysisResult.getEntities().stream()
+                .anyMatch(entity -> entity != null && isCached(settings, entity));
+    }
+
+    static boolean isCached(ArchieConfig.Generation settings, DiagramAnalysisResult.EntityMetadata entity) {
+        return switch (settings.getCaching()) {
+            case NONE -> false;
+            case ANNOTATED -> isSpecified(entity.getCache());
+            case ALL -> true;
+        };
+    }
+
+    /**
+     * A spec without a positive TTL or size ("cache": {} or nulls) says nothing and does not opt the entity in
+     */
+    private static boolean isSpecified(DiagramAnalysisResult.CacheMetadata spec) {
+        return spec != null && (spec.getTtlSeconds() != null && spec.getTtlSeconds() > 0
+                || spec.getMaxSize() != null && spec.getMaxSize() > 0);
+    }
+
+    static String byId(DiagramAnalysisResult.EntityMetadata entity) {
+        return EntityKeys.uncapitalize(entity.getName()) + "s";
+    }
+
+    static String byAttribute(DiagramAnalysisResult.EntityMetadata entity,
+            DiagramAnalysisResult.AttributeMetadata attr) {
+        return byId(entity) + ".by" + EntityKeys.capitalize(attr.getName());
+    }
+
+    static List<Region> regionsOf(ArchieConfig.Generation settings, DiagramAnalysisResult.EntityMetadata entity) {
+        DiagramAnalysisResult.CacheMetadata spec = entity.getCache();
+        long ttlSeconds = spec != null && spec.getTtlSeconds() != null && spec.getTtlSeconds() > 0
+                ? spec.getTtlSeconds()
+                : settings.getCacheTtl().toSeconds();
+        int maxSize = spec != null && spec.getMaxSize() != null && spec.getMaxSize() > 0
+                ? spec.getMaxSize()
+                : settings.getCacheMaxSize();
+
+        List<Region> regions = new ArrayList<>();
+        regions.add(new Region(byId(entity), ttlSeconds, maxSize));
+        for (DiagramAnalysisResult.AttributeMetadata attr : EntityKeys.lookupAttributes(entity)) {
+            regions.add(new Region(byAttribute(entity, attr), ttlSeconds, maxSize));
+        }
+        return regions;
+    }
+}
@@ -1,26 +1,61 @@
 package com.archie.codegen.generator;
 
 import com.archie.ai.model.DiagramAnalysisResult;
+import com.archie.config.ArchieConfig;
+import com.archie.config.IdStrategy;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.squareup.javapoet.*;
+import jakarta.persistence.EntityManager;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.stereotype.Component;
 
 import javax.lang.model.element.Modifier;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.*;
+import java.util.stream.Stream;
 
 /**
  * Generates REST controller classes using JavaPoet
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class ControllerGenerator {
 
+        private final ArchieConfig config;
+
         /**
          * Generate REST controller for an entity
          */
         public String generateController(DiagramAnalysisResult.EntityMetadata entity, String basePackage) {
+                return buildControllerFile(entity, basePackage).toString();
+        }
+
+        /**
+         * Write the controller source straight to the output
+         */
+        public void writeController(DiagramAnalysisResult.EntityMetadata entity, String basePackage, Appendable out)
+                        throws IOException {
+                buildControllerFile(entity, basePackage).writeTo(out);
+        }
+
+        /**
+         * Build the JavaPoet file for the controller
+         */
+        private JavaFile buildControllerFile(DiagramAnalysisResult.EntityMetadata entity, String basePackage) {
                 try {
                         log.debug("Generating controller for: {}", entity.getName());
 
@@ -28,6 +63,8 @@ public class ControllerGenerator {
                         String controllerName = entityClassName + "Controller";
                         String repositoryName = entityClassName + "Repository";
                         String variableName = uncapitalize(entityClassName);
+                        String primaryKey = EntityKeys.primaryKeyName(entity);
+                        ArchieConfig.Generation settings = config.getGeneration();
 
                         // Create type references
                         ClassName entityType = ClassName.get(basePackage + ".entity", entityClassName);
@@ -58,14 +95,43 @@ public class ControllerGenerator {
                                         .addModifiers(Modifier.PRIVATE, Modifier.FINAL)
                                         .build();
                         controllerBuilder.addField(repositoryField);
+                        controllerBuilder.addField(FieldSpec.builder(int.class, "MAX_PAGE_SIZE")
+                                        .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                                        .initializer("$L", settings.getMaxPageSize())
+                                        .build());
 
                         // Add CRUD methods
-                        controllerBuilder.addMethod(generateGetAllMethod(entityType, listType, variableName));
-                        controllerBuilder
-                                        .addMethod(generateGetByIdMethod(entityType, responseEntityType, variableName));
+                        controllerBuilder.addMethod(generateGetAllMethod(entityType, variableName, primaryKey,
+                                        settings.getDefaultPageSize()));
+                        controllerBuilder.addMethod(generateKeysetMethod(listType, variableName, primaryKey,
+                                        settings.getDefaultPageSize()));
+                        if (settings.isStreamingEndpoints()) {
+                                controllerBuilder.addField(ObjectMapper.class, "objectMapper",
+                                                Modifier.PRIVATE, Modifier.FINAL);
+                                controllerBuilder.addField(EntityManager.class, "entityManager",
+                                                Modifier.PRIVATE, Modifier.FINAL);
+                                controllerBuilder.addMethod(generateStreamMethod(entityType, variableName, primaryKey));
+                        }
+                        // Cached entities keep reads in their cache regions until an update or delete evicts them
+                        boolean cached = CacheRegions.isCached(settings, entity);
+                        List<DiagramAnalysisResult.AttributeMetadata> lookups = EntityKeys.lookupAttributes(entity);
+                        MethodSpec getById = generateGetByIdMethod(entityType, responseEntityType, variableName);
+                        controllerBuilder.addMethod(cached
+                                        ? cacheable(getById, CacheRegions.byId(entity), "id")
+                                        : getById);
+                        for (DiagramAnalysisResult.AttributeMetadata attr : lookups) {
+                                MethodSpec lookup = generateLookupMethod(responseEntityType, variableName, attr);
+                                controllerBuilder.addMethod(cached
+                                                ? cacheable(lookup, CacheRegions.byAttribute(entity, attr),
+                                                                attr.getName())
+                                                : lookup);
+                        }
                         controllerBuilder.addMethod(generateCreateMethod(entityType, variableName));
-                        controllerBuilder.addMethod(generateUpdateMethod(entityType, responseEntityType, variableName));
-                        controllerBuilder.addMethod(generateDeleteMethod(responseEntityType, variableName));
+                        MethodSpec update = generateUpdateMethod(entityType, responseEntityType, variableName);
+                        MethodSpec delete = generateDeleteMethod(responseEntityType, variableName);
+                        controllerBuilder.addMethod(cached ? evicting(update, entity, lookups) : update);
+                        controllerBuilder.addMethod(cached ? evicting(delete, entity, lookups) : delete);
+                        controllerBuilder.addMethod(generatePageSizeMethod());
 
                         // Generate Java file
                         JavaFile javaFile = JavaFile.builder(basePackage + ".controller", controllerBuilder.build())
@@ -73,7 +139,7 @@ public class ControllerGenerator {
                                         .indent("    ")
                                         .build();
 
-                        return javaFile.toString();
+                        return javaFile;
 
                 } catch (Exception e) {
                         log.error("Error generating controller for {}: {}", entity.getName(), e.getMessage(), e);
@@ -81,13 +147,111 @@ public class ControllerGenerator {
                 }
         }
 
-        private MethodSpec generateGetAllMethod(ClassName entityType, ParameterizedTypeName listType,
-                        String variableName) {
+        /**
+         * Offset page as a Slice, so no count query runs; the page size is capped at MAX_PAGE_SIZE
+         */
+        private MethodSpec generateGetAllMethod(ClassName entityType, String variableName, String primaryKey,
+                        int defaultPageSize) {
                 return MethodSpec.methodBuilder("getAll" + capitalize(variableName) + "s")
                                 .addModifiers(Modifier.PUBLIC)
                                 .addAnnotation(GetMapping.class)
+                                .addParameter(pageParameter(int.class, "page", "0"))
+                                .addParameter(pageParameter(int.class, "size", String.valueOf(defaultPageSize)))
+                                .returns(ParameterizedTypeName.get(ClassName.get(Slice.class), entityType))
+                                .addStatement("return repository.findAllBy($T.of($T.max(page, 0), pageSize(size), "
+                                                + "$T.by($S)))", PageRequest.class, Math.class, Sort.class, primaryKey)
+                                .build();
+        }
+
+        /**
+         * Keyset page: rows after the last key the client has seen, constant cost however deep it pages
+         */
+        private MethodSpec generateKeysetMethod(ParameterizedTypeName listType, String variableName,
+                        String primaryKey, int defaultPageSize) {
+                return MethodSpec.methodBuilder("get" + capitalize(variableName) + "sAfter")
+                                .addModifiers(Modifier.PUBLIC)
+                                .addAnnotation(
+                                                AnnotationSpec.builder(GetMapping.class)
+                                                                .addMember("value", "$S", "/keyset")
+                                                                .build())
+                                .addParameter(pageParameter(idType(), "after", lowestId()))
+                                .addParameter(pageParameter(int.class, "size", String.valueOf(defaultPageSize)))
                                 .returns(listType)
-                                .addStatement("return repository.findAll()")
+                                .addStatement("return repository.findBy$LGreaterThan(after, $T.of(0, pageSize(size), "
+                                                + "$T.by($S)))", capitalize(primaryKey), PageRequest.class,
+                                                Sort.class, primaryKey)
+                                .build();
+        }
+
+        /**
+         * Whole table as NDJSON from a database cursor; each row is detached once written
+         * so the persistence context stays small
+         */
+        private MethodSpec generateStreamMethod(ClassName entityType, String variableName, String primaryKey) {
+                return MethodSpec.methodBuilder("stream" + capitalize(variableName) + "s")
+                                .addModifiers(Modifier.PUBLIC)
+                                .addAnnotation(
+                                                AnnotationSpec.builder(GetMapping.class)
+                                                                .addMember("value", "$S", "/stream")
+                                                                .addMember("produces", "$T.APPLICATION_NDJSON_VALUE",
+                                                                                MediaType.class)
+                                                                .build())
+                                .addAnnotation(
+                                                AnnotationSpec.builder(Transactional.class)
+                                                                .addMember("readOnly", "true")
+                                                                .build())
+                                .addParameter(HttpServletResponse.class, "response")
+                                .addException(IOException.class)
+                                .addStatement("response.setContentType($T.APPLICATION_NDJSON_VALUE)", MediaType.class)
+                                .addStatement("$T out = response.getOutputStream()", OutputStream.class)
+                                .beginControlFlow("try ($T rows = repository.streamAllByOrderBy$LAsc())",
+                                                ParameterizedTypeName.get(ClassName.get(Stream.class), entityType),
+                                                capitalize(primaryKey))
+                                .beginControlFlow("for ($T row : ($T<$T>) rows::iterator)",
+                                                entityType, Iterable.class, entityType)
+                                .addStatement("out.write(objectMapper.writeValueAsBytes(row))")
+                                .addStatement("out.write('\\n')")
+                                .addStatement("entityManager.detach(row)")
+                                .endControlFlow()
+                                .endControlFlow()
+                                .addStatement("out.flush()")
+                                .build();
+        }
+
+        private MethodSpec generatePageSizeMethod() {
+                return MethodSpec.methodBuilder("pageSize")
+                                .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                                .addParameter(int.class, "size")
+                                .returns(int.class)
+                                .addStatement("return $T.min($T.max(size, 1), MAX_PAGE_SIZE)", Math.class, Math.class)
+                                .build();
+        }
+
+        private ParameterSpec idParameter() {
+                return ParameterSpec.builder(idType(), "id")
+                                .addAnnotation(PathVariable.class)
+                                .build();
+        }
+
+        private Class<?> idType() {
+                return EntityKeys.idType(config.getGeneration().getIdStrategy());
+        }
+
+        /**
+         * Starting point of keyset pagination; UUIDv7 keys order by creation time like sequence values
+         */
+        private String lowestId() {
+                return config.getGeneration().getIdStrategy() == IdStrategy.UUID
+                                ? new UUID(0L, 0L).toString()
+                                : "0";
+        }
+
+        private ParameterSpec pageParameter(Class<?> type, String name, String defaultValue) {
+                return ParameterSpec.builder(type, name)
+                                .addAnnotation(
+                                                AnnotationSpec.builder(RequestParam.class)
+                                                                .addMember("defaultValue", "$S", defaultValue)
+                                                                .build())
                                 .build();
         }
 
@@ -99,10 +263,7 @@ public class ControllerGenerator {
                                                 AnnotationSpec.builder(GetMapping.class)
                                                                 .addMember("value", "$S", "/{id}")
                                                                 .build())
-                                .addParameter(
-                                                ParameterSpec.builder(Long.class, "id")
-                                                                .addAnnotation(PathVariable.class)
-                                                                .build())
+                                .addParameter(idParameter())
                                 .returns(responseEntityType)
                                 .addStatement("return repository.findById(id)\n" +
                                                 "    .map($T::ok)\n" +
@@ -111,6 +272,70 @@ public class ControllerGenerator {
                                 .build();
         }
 
+        /**
+         * Lookup on a unique attribute, e.g. GET /by-email/{email}
+         */
+        private MethodSpec generateLookupMethod(ParameterizedTypeName responseEntityType, String variableName,
+                        DiagramAnalysisResult.AttributeMetadata attr) {
+                String attribute = attr.getName();
+                String segment = RelationshipResolver.toSnakeCase(attribute).replace('_', '-');
+                return MethodSpec.methodBuilder("get" + capitalize(variableName) + "By" + capitalize(attribute))
+                                .addModifiers(Modifier.PUBLIC)
+                                .addAnnotation(
+                                                AnnotationSpec.builder(GetMapping.class)
+                                                                .addMember("value", "$S", "/by-" + segment
+                                                                                + "/{" + attribute + "}")
+                                                                .build())
+                                .addParameter(ParameterSpec.builder(EntityKeys.javaType(attr.getType()), attribute)
+                                                .addAnnotation(PathVariable.class)
+                                                .build())
+                                .returns(responseEntityType)
+                                .addStatement("return repository.findBy$L($L)\n" +
+                                                "    .map($T::ok)\n" +
+                                                "    .orElse($T.notFound().build())",
+                                                capitalize(attribute), attribute,
+                                                ResponseEntity.class, ResponseEntity.class)
+                                .build();
+        }
+
+        /**
+         * Found entities only; a 404 is not cached, so a later create is seen right away
+         */
+        private MethodSpec cacheable(MethodSpec method, String region, String key) {
+                return method.toBuilder()
+                                .addAnnotation(
+                                                AnnotationSpec.builder(Cacheable.class)
+                                                                .addMember("cacheNames", "$S", region)
+                                                                .addMember("key", "$S", "#" + key)
+                                                                .addMember("unless", "$S", "#result.body == null")
+                                                                .build())
+                                .build();
+        }
+
+        /**
+         * Evicts the entry by id; lookup regions are keyed by attribute values the request may not carry,
+         * so they are cleared
+         */
+        private MethodSpec evicting(MethodSpec method, DiagramAnalysisResult.EntityMetadata entity,
+                        List<DiagramAnalysisResult.AttributeMetadata> lookups) {
+                AnnotationSpec byId = AnnotationSpec.builder(CacheEvict.class)
+                                .addMember("cacheNames", "$S", CacheRegions.byId(entity))
+                                .addMember("key", "$S", "#id")
+                                .build();
+                if (lookups.isEmpty()) {
+                        return method.toBuilder().addAnnotation(byId).build();
+                }
+                AnnotationSpec.Builder caching = AnnotationSpec.builder(Caching.class)
+                                .addMember("evict", "$L", byId);
+                for (DiagramAnalysisResult.AttributeMetadata attr : lookups) {
+                        caching.addMember("evict", "$L", AnnotationSpec.builder(CacheEvict.class)
+                                        .addMember("cacheNames", "$S", CacheRegions.byAttribute(entity, attr))
+                                        .addMember("allEntries", "true")
+                                        .build());
+                }
+                return method.toBuilder().addAnnotation(caching.build()).build();
+        }
+
         private MethodSpec generateCreateMethod(ClassName entityType, String variableName) {
                 return MethodSpec.methodBuilder("create" + capitalize(variableName))
                                 .addModifiers(Modifier.PUBLIC)
@@ -132,10 +357,7 @@ public class ControllerGenerator {
                                                 AnnotationSpec.builder(PutMapping.class)
                                                                 .addMember("value", "$S", "/{id}")
                                                                 .build())
-                                .addParameter(
-                                                ParameterSpec.builder(Long.class, "id")
-                                                                .addAnnotation(PathVariable.class)
-                                                                .build())
+                                .addParameter(idParameter())
                                 .addParameter(
                                                 ParameterSpec.builder(entityType, variableName)
                                                                 .addAnnotation(RequestBody.class)
@@ -156,10 +378,7 @@ public class ControllerGenerator {
                                                 AnnotationSpec.builder(DeleteMapping.class)
                                                                 .addMember("value", "$S", "/{id}")
                                                                 .build())
-                                .addParameter(
-                                                ParameterSpec.builder(Long.class, "id")
-                                                                .addAnnotation(PathVariable.class)
-                                                                .build())
+                                .addParameter(idParameter())
                                 .returns(ParameterizedTypeName.get(ClassName.get(ResponseEntity.class),
                                                 ClassName.get(Void.class)))
                                 .addStatement("repository.deleteById(id)")
@@ -1,31 +1,65 @@
 package com.archie.codegen.generator;
 
 import com.archie.ai.model.DiagramAnalysisResult;
+import com.archie.codegen.generator.RelationshipResolver.Association;
+import com.archie.config.ArchieConfig;
+import com.archie.config.DatabaseType;
+import com.archie.config.IdStrategy;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.squareup.javapoet.*;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.annotations.BatchSize;
 import org.springframework.stereotype.Component;
 
 import javax.lang.model.element.Modifier;
 import jakarta.persistence.*;
 
-import java.math.BigDecimal;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.*;
 
 /**
- * Generates JPA entity classes using JavaPoet
+ * Generates JPA entity classes using JavaPoet. Associations come from the diagram relationships;
+ * they are lazy and batch-loaded, and named entity graphs cover the fetch paths of the repositories.
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class EntityGenerator {
 
+    private final ArchieConfig config;
+
     /**
      * Generate JPA entity class code
      */
-    public String generateEntity(DiagramAnalysisResult.EntityMetadata entity, String basePackage) {
+    public String generateEntity(DiagramAnalysisResult.EntityMetadata entity, DiagramAnalysisResult analysisResult,
+            DatabaseType databaseType) {
+        return buildEntityFile(entity, analysisResult, databaseType).toString();
+    }
+
+    /**
+     * Write the entity source straight to the output
+     */
+    public void writeEntity(DiagramAnalysisResult.EntityMetadata entity, DiagramAnalysisResult analysisResult,
+            DatabaseType databaseType, Appendable out) throws IOException {
+        buildEntityFile(entity, analysisResult, databaseType).writeTo(out);
+    }
+
+    /**
+     * Build the JavaPoet file for the entity class
+     */
+    private JavaFile buildEntityFile(DiagramAnalysisResult.EntityMetadata entity,
+            DiagramAnalysisResult analysisResult, DatabaseType databaseType) {
         try {
             log.debug("Generating entity: {}", entity.getName());
 
+            String basePackage = analysisResult.getBasePackage();
+            String table = RelationshipResolver.tableName(entity);
+            IdStrategy idStrategy = EntityKeys.idStrategy(config.getGeneration().getIdStrategy(), databaseType);
+            RelationshipResolver relationships = RelationshipResolver.resolve(analysisResult);
+            List<Association> associations = relationships.associationsOf(entity.getName());
+
             // Create entity class builder
             TypeSpec.Builder entityBuilder = TypeSpec.classBuilder(entity.getName())
                     .addModifiers(Modifier.PUBLIC)
@@ -44,10 +78,24 @@ public class EntityGenerator {
                                 .build());
             }
 
+            // Proxies behind to-one associations are initialized together, not one query per row
+            if (relationships.isReferenced(entity.getName())) {
+                entityBuilder.addAnnotation(batchSize());
+            }
+            addEntityGraphs(entityBuilder, entity.getName(), associations);
+
             // Add fields
+            Set<String> columns = new HashSet<>();
             for (DiagramAnalysisResult.AttributeMetadata attr : entity.getAttributes()) {
-                FieldSpec field = generateField(attr);
+                FieldSpec field = generateField(attr, idStrategy, table);
                 entityBuilder.addField(field);
+                if (attr.isPrimaryKey() && idStrategy == IdStrategy.UUID) {
+                    entityBuilder.addMethod(generateUuidAssignment(attr.getName(), basePackage));
+                }
+                columns.add(RelationshipResolver.toSnakeCase(attr.getName()));
+            }
+            for (Association association : associations) {
+                entityBuilder.addField(generateAssociationField(association, basePackage, columns));
             }
 
             // Generate Java file
@@ -57,7 +105,7 @@ public class EntityGenerator {
                     .indent("    ")
                     .build();
 
-            return javaFile.toString();
+            return javaFile;
 
         } catch (Exception e) {
             log.error("Error generating entity {}: {}", entity.getName(), e.getMessage(), e);
@@ -68,19 +116,17 @@ public class EntityGenerator {
     /**
      * Generate entity field with JPA annotations
      */
-    private FieldSpec generateField(DiagramAnalysisResult.AttributeMetadata attr) {
+    private FieldSpec generateField(DiagramAnalysisResult.AttributeMetadata attr, IdStrategy idStrategy,
+            String table) {
         FieldSpec.Builder fieldBuilder = FieldSpec.builder(
-                getJavaType(attr.getType()),
+                attr.isPrimaryKey() ? primaryKeyType(attr, idStrategy) : EntityKeys.javaType(attr.getType()),
                 attr.getName(),
                 Modifier.PRIVATE);
 
         // Add @Id for primary key
         if (attr.isPrimaryKey()) {
             fieldBuilder.addAnnotation(Id.class);
-            fieldBuilder.addAnnotation(
-                    AnnotationSpec.builder(GeneratedValue.class)
-                            .addMember("strategy", "$T.IDENTITY", GenerationType.class)
-                            .build());
+            addIdGeneration(fieldBuilder, idStrategy, table);
         }
 
         // Add @Column annotation
@@ -95,36 +141,191 @@ public class EntityGenerator {
             columnBuilder.addMember("length", "$L", attr.getLength());
         }
 
+        EntityKeys.ColumnType columnType = EntityKeys.columnType(attr.getType());
+        if (!attr.isPrimaryKey() && columnType.explicit()) {
+            columnBuilder.addMember("columnDefinition", "$S", columnType.sqlType(attr.getLength()));
+        }
+
         fieldBuilder.addAnnotation(columnBuilder.build());
 
         return fieldBuilder.build();
     }
 
+    private TypeName primaryKeyType(DiagramAnalysisResult.AttributeMetadata attr, IdStrategy idStrategy) {
+        return idStrategy == IdStrategy.UUID
+                ? ClassName.get(UUID.class)
+                : ClassName.get(EntityKeys.javaType(attr.getType()));
+    }
+
+    /**
+     * Id generation. Sequences use Hibernate's pooled optimizer (allocationSize above 1), so ids for a
+     * whole insert batch come from one sequence call; IDENTITY makes Hibernate insert row by row.
+     */
+    private void addIdGeneration(FieldSpec.Builder fieldBuilder, IdStrategy idStrategy, String table) {
+        switch (idStrategy) {
+            case SEQUENCE -> {
+                String sequence = EntityKeys.sequenceName(table);
+                fieldBuilder.addAnnotation(
+                        AnnotationSpec.builder(GeneratedValue.class)
+                                .addMember("strategy", "$T.SEQUENCE", GenerationType.class)
+                                .addMember("generator", "$S", sequence)
+                                .build());
+                fieldBuilder.addAnnotation(
+                        AnnotationSpec.builder(SequenceGenerator.class)
+                                .addMember("name", "$S", sequence)
+                                .addMember("sequenceName", "$S", sequence)
+                                .addMember("allocationSize", "$L", config.getGeneration().getIdAllocationSize())
+                                .build());
+            }
+            case IDENTITY -> fieldBuilder.addAnnotation(
+                    AnnotationSpec.builder(GeneratedValue.class)
+                            .addMember("strategy", "$T.IDENTITY", GenerationType.class)
+                            .build());
+            default -> {
+                // UUID: assigned in @PrePersist, see generateUuidAssignment
+            }
+        }
+    }
+
+    /**
+     * Assign a UUIDv7 right before insert. The id stays null until then, so Spring Data still
+     * persists (not merges) new entities.
+     */
+    private MethodSpec generateUuidAssignment(String idField, String basePackage) {
+        return MethodSpec.methodBuilder("assign" + EntityKeys.capitalize(idField))
+                .addModifiers(Modifier.PROTECTED)
+                .addAnnotation(PrePersist.class)
+                .beginControlFlow("if ($N == null)", idField)
+                .addStatement("$N = $T.randomUuid()", idField, ClassName.get(basePackage + ".entity", "UuidV7"))
+                .endControlFlow()
+                .build();
+    }
+
+    /**
+     * Named graphs used by the generated repositories: the to-one references for list queries,
+     * every association for loading a whole aggregate
+     */
+    private void addEntityGraphs(TypeSpec.Builder entityBuilder, String entityName, List<Association> associations) {
+        List<Association> references = associations.stream().filter(a -> !a.isCollection()).toList();
+        if (!references.isEmpty()) {
+            entityBuilder.addAnnotation(entityGraph(RelationshipResolver.referencesGraph(entityName), references));
+        }
+        if (!associations.isEmpty()) {
+            entityBuilder.addAnnotation(entityGraph(RelationshipResolver.associationsGraph(entityName), associations));
+        }
+    }
+
+    private AnnotationSpec entityGraph(String name, List<Association> associations) {
+        AnnotationSpec.Builder graph = AnnotationSpec.builder(NamedEntityGraph.class)
+                .addMember("name", "$S", name);
+        for (Association association : associations) {
+            graph.addMember("attributeNodes", "$L", AnnotationSpec.builder(NamedAttributeNode.class)
+                    .addMember("value", "$S", association.field())
+                    .build());
+        }
+        return graph.build();
+    }
+
+    /**
+     * Generate an association field. To-one sides are lazy (JPA defaults them to eager), collections are
+     * sets so that a graph may fetch several of them, and nothing that navigates back is serialized
+     * or part of toString/equals.
+     */
+    private FieldSpec generateAssociationField(Association association, String basePackage, Set<String> columns) {
+        ClassName target = ClassName.get(basePackage + ".entity", association.targetEntity());
+        FieldSpec.Builder fieldBuilder = FieldSpec.builder(
+                association.isCollection() ? ParameterizedTypeName.get(ClassName.get(Set.class), target) : target,
+                association.field(),
+                Modifier.PRIVATE);
+
+        switch (association.type()) {
+            case MANY_TO_ONE -> fieldBuilder
+                    .addAnnotation(toOne(ManyToOne.class, null))
+                    .addAnnotation(joinColumn(association.foreignKey(), columns));
+            case ONE_TO_ONE -> {
+                if (association.isOwning()) {
+                    fieldBuilder.addAnnotation(toOne(OneToOne.class, null))
+                            .addAnnotation(joinColumn(association.foreignKey(), columns));
+                } else {
+                    fieldBuilder.addAnnotation(toOne(OneToOne.class, association.mappedBy()));
+                }
+            }
+            case ONE_TO_MANY -> fieldBuilder.addAnnotation(AnnotationSpec.builder(OneToMany.class)
+                    .addMember("mappedBy", "$S", association.mappedBy())
+                    .build());
+            case MANY_TO_MANY -> {
+                if (association.isOwning()) {
+                    RelationshipResolver.JoinTable joinTable = association.joinTable();
+                    fieldBuilder.addAnnotation(ManyToMany.class)
+                            .addAnnotation(AnnotationSpec.builder(JoinTable.class)
+                                    .addMember("name", "$S", joinTable.name())
+                                    .addMember("joinColumns", "$L", AnnotationSpec.builder(JoinColumn.class)
+                                            .addMember("name", "$S", joinTable.source().column())
+                                            .build())
+                                    .addMember("inverseJoinColumns", "$L", AnnotationSpec.builder(JoinColumn.class)
+                                            .addMember("name", "$S", joinTable.target().column())
+                                            .build())
+                                    .build());
+                } else {
+                    fieldBuilder.addAnnotation(AnnotationSpec.builder(ManyToMany.class)
+                            .addMember("mappedBy", "$S", association.mappedBy())
+                            .build());
+                }
+            }
+        }
+
+        if (association.isCollection()) {
+            fieldBuilder.addAnnotation(batchSize())
+                    .addAnnotation(ClassName.get("lombok", "Builder", "Default"))
+                    .initializer("new $T<>()", LinkedHashSet.class);
+        }
+        if (association.isCollection() || !association.isOwning()) {
+            fieldBuilder.addAnnotation(JsonIgnore.class);
+        }
+        fieldBuilder.addAnnotation(ClassName.get("lombok", "ToString", "Exclude"))
+                .addAnnotation(ClassName.get("lombok", "EqualsAndHashCode", "Exclude"));
+
+        return fieldBuilder.build();
+    }
+
+    private AnnotationSpec toOne(Class<?> annotation, String mappedBy) {
+        AnnotationSpec.Builder builder = AnnotationSpec.builder(annotation);
+        if (mappedBy != null) {
+            builder.addMember("mappedBy", "$S", mappedBy);
+        }
+        return builder.addMember("fetch", "$T.LAZY", FetchType.class).build();
+    }
+
     /**
-     * Map string type to Java class
+     * Join column of a to-one association; read-only when an attribute already maps the same column
      */
-    private Class<?> getJavaType(String type) {
-        return switch (type.toLowerCase()) {
-            case "long", "bigint", "int64" -> Long.class;
-            case "integer", "int", "int32" -> Integer.class;
-            case "string", "varchar", "text", "char" -> String.class;
-            case "boolean", "bool" -> Boolean.class;
-            case "double", "float64" -> Double.class;
-            case "float", "float32" -> Float.class;
-            case "bigdecimal", "decimal", "numeric" -> BigDecimal.class;
-            case "date", "timestamp", "datetime", "localdatetime" -> LocalDateTime.class;
-            default -> String.class; // fallback
-        };
+    private AnnotationSpec joinColumn(RelationshipResolver.ForeignKey foreignKey, Set<String> columns) {
+        AnnotationSpec.Builder builder = AnnotationSpec.builder(JoinColumn.class)
+                .addMember("name", "$S", foreignKey.column());
+        if (foreignKey.unique()) {
+            builder.addMember("unique", "$L", true);
+        }
+        if (columns.contains(foreignKey.column())) {
+            builder.addMember("insertable", "$L", false)
+                    .addMember("updatable", "$L", false);
+        }
+        return builder.build();
+    }
+
+    private AnnotationSpec batchSize() {
+        return AnnotationSpec.builder(BatchSize.class)
+                .addMember("size", "$L", config.getGeneration().getFetchBatchSize())
+                .build();
     }
 
     /**
      * Generate all entities from analysis result
      */
-    public Map<String, String> generateAllEntities(DiagramAnalysisResult analysisResult) {
+    public Map<String, String> generateAllEntities(DiagramAnalysisResult analysisResult, DatabaseType databaseType) {
         Map<String, String> generatedEntities = new LinkedHashMap<>();
 
         for (DiagramAnalysisResult.EntityMetadata entity : analysisResult.getEntities()) {
-            String entityCode = generateEntity(entity, analysisResult.getBasePackage());
+            String entityCode = generateEntity(entity, analysisResult, databaseType);
             String fileName = entity.getName() + ".java";
             generatedEntities.put(fileName, entityCode);
         }
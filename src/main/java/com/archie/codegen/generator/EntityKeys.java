@@ -0,0 +1,146 @@
+package com.archie.codegen.generator;
+
+import com.archie.ai.model.DiagramAnalysisResult;
+import com.archie.config.DatabaseType;
+import com.archie.config.IdStrategy;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static java.util.Map.entry;
+
+/**
+ * Primary key lookups, id generation rules and attribute types shared by the generators
+ */
+final class EntityKeys {
+
+    private static final String DEFAULT_PRIMARY_KEY = "id";
+    private static final Set<Class<?>> LOOKUP_TYPES = Set.of(String.class, Long.class, Integer.class);
+
+    /**
+     * Java field type and DDL column type of an attribute type. VARCHAR columns take the attribute's length;
+     * explicit types differ from what Hibernate derives for the field, so the entity names them in @Column.
+     */
+    record ColumnType(Class<?> javaType, String sqlType, boolean explicit) {
+
+        String sqlType(Integer length) {
+            if (!"VARCHAR".equals(sqlType)) {
+                return sqlType;
+            }
+            return "VARCHAR(" + (length != null && length > 0 ? length : 255) + ")";
+        }
+    }
+
+    private static final ColumnType BIGINT = new ColumnType(Long.class, "BIGINT", false);
+    private static final ColumnType INTEGER = new ColumnType(Integer.class, "INTEGER", false);
+    private static final ColumnType VARCHAR = new ColumnType(String.class, "VARCHAR", false);
+    private static final ColumnType TEXT = new ColumnType(String.class, "TEXT", true);
+    private static final ColumnType BOOLEAN = new ColumnType(Boolean.class, "BOOLEAN", false);
+    private static final ColumnType DOUBLE = new ColumnType(Double.class, "DOUBLE PRECISION", false);
+    private static final ColumnType REAL = new ColumnType(Float.class, "REAL", false);
+    private static final ColumnType DECIMAL = new ColumnType(BigDecimal.class, "DECIMAL(19,2)", false);
+    private static final ColumnType DATE = new ColumnType(LocalDate.class, "DATE", false);
+    private static final ColumnType TIMESTAMP = new ColumnType(LocalDateTime.class, "TIMESTAMP", false);
+
+    // The one place attribute types are mapped; entity fields and schema columns must agree for ddl-auto=validate
+    private static final Map<String, ColumnType> COLUMN_TYPES = Map.ofEntries(
+            entry("long", BIGINT), entry("bigint", BIGINT), entry("int64", BIGINT),
+            entry("integer", INTEGER), entry("int", INTEGER), entry("int32", INTEGER),
+            entry("string", VARCHAR), entry("varchar", VARCHAR), entry("char", VARCHAR),
+            entry("text", TEXT),
+            entry("boolean", BOOLEAN), entry("bool", BOOLEAN),
+            entry("double", DOUBLE), entry("float64", DOUBLE),
+            entry("float", REAL), entry("float32", REAL),
+            entry("bigdecimal", DECIMAL), entry("decimal", DECIMAL), entry("numeric", DECIMAL),
+            entry("date", DATE), entry("localdate", DATE),
+            entry("timestamp", TIMESTAMP), entry("datetime", TIMESTAMP), entry("localdatetime", TIMESTAMP));
+
+    private EntityKeys() {
+    }
+
+    /**
+     * Name of the primary key attribute, "id" when the diagram marks none
+     */
+    static String primaryKeyName(DiagramAnalysisResult.EntityMetadata entity) {
+        if (entity.getAttributes() != null) {
+            for (DiagramAnalysisResult.AttributeMetadata attr : entity.getAttributes()) {
+                if (attr.isPrimaryKey()) {
+                    return attr.getName();
+                }
+            }
+        }
+        return DEFAULT_PRIMARY_KEY;
+    }
+
+    /**
+     * Strategy used on the given database: AUTO becomes a pooled sequence where the database has sequences.
+     * MySQL and SQLite get identity columns instead, never a TABLE generator, which serializes inserts on a
+     * row lock.
+     */
+    static IdStrategy idStrategy(IdStrategy configured, DatabaseType databaseType) {
+        boolean sequences = databaseType == DatabaseType.POSTGRESQL || databaseType == DatabaseType.H2;
+        return switch (configured) {
+            case AUTO, SEQUENCE -> sequences ? IdStrategy.SEQUENCE : IdStrategy.IDENTITY;
+            case IDENTITY, UUID -> configured;
+        };
+    }
+
+    /**
+     * Java type of generated primary keys
+     */
+    static Class<?> idType(IdStrategy configured) {
+        return configured == IdStrategy.UUID ? UUID.class : Long.class;
+    }
+
+    /**
+     * Unique attributes other than the primary key that make sense as a path segment; "id" is left out
+     * since findById and GET /{id} already exist
+     */
+    static List<DiagramAnalysisResult.AttributeMetadata> lookupAttributes(DiagramAnalysisResult.EntityMetadata entity) {
+        if (entity.getAttributes() == null) {
+            return List.of();
+        }
+        return entity.getAttributes().stream()
+                .filter(attr -> attr.isUnique() && !attr.isPrimaryKey() && attr.getType() != null)
+                .filter(attr -> !DEFAULT_PRIMARY_KEY.equals(attr.getName()))
+                .filter(attr -> LOOKUP_TYPES.contains(javaType(attr.getType())))
+                .toList();
+    }
+
+    /**
+     * Column type of an attribute type, VARCHAR for unknown types
+     */
+    static ColumnType columnType(String type) {
+        return COLUMN_TYPES.getOrDefault(type.toLowerCase(), VARCHAR);
+    }
+
+    /**
+     * Map string type to Java class
+     */
+    static Class<?> javaType(String type) {
+        return columnType(type).javaType();
+    }
+
+    static String sequenceName(String table) {
+        return table + "_seq";
+    }
+
+    static String capitalize(String str) {
+        if (str == null || str.isEmpty()) {
+            return str;
+        }
+        return str.substring(0, 1).toUpperCase() + str.substring(1);
+    }
+
+    static String uncapitalize(String str) {
+        if (str == null || str.isEmpty()) {
+            return str;
+        }
+        return str.substring(0, 1).toLowerCase() + str.substring(1);
+    }
+}
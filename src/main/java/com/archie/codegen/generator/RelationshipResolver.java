@@ -0,0 +1,289 @@
+package com.archie.codegen.generator;
+
+import com.archie.ai.model.DiagramAnalysisResult;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decides where the foreign key of each diagram relationship lives: on the "many" side of one-to-many
+ * and many-to-one, on the source of one-to-one, and in a join table for many-to-many.
+ * Relationships that name unknown entities are skipped; the same key declared from both ends is kept once.
+ * The resulting association fields are the same for schema.sql and the JPA entities.
+ */
+@Slf4j
+final class RelationshipResolver {
+
+    /**
+     * Foreign key column {@code table.column} referencing {@code referencedTable.referencedColumn}
+     */
+    record ForeignKey(String ownerEntity, String table, String column, String referencedEntity,
+            String referencedTable, String referencedColumn, DiagramAnalysisResult.AttributeMetadata referencedKey,
+            boolean unique) {
+    }
+
+    /**
+     * Join table of a many-to-many relationship; the primary key is (source.column, target.column)
+     */
+    record JoinTable(String name, ForeignKey source, ForeignKey target) {
+    }
+
+    enum AssociationType {
+        MANY_TO_ONE,
+        ONE_TO_ONE,
+        ONE_TO_MANY,
+        MANY_TO_MANY
+    }
+
+    /**
+     * Association field of an entity. The owning side carries the foreign key or join table,
+     * the inverse side only names the owning field in mappedBy.
+     */
+    record Association(String field, AssociationType type, String targetEntity, String mappedBy,
+            ForeignKey foreignKey, JoinTable joinTable) {
+
+        boolean isCollection() {
+            return type == AssociationType.ONE_TO_MANY || type == AssociationType.MANY_TO_MANY;
+        }
+
+        boolean isOwning() {
+            return mappedBy == null;
+        }
+    }
+
+    private final List<ForeignKey> foreignKeys;
+    private final List<JoinTable> joinTables;
+    private final Map<String, List<Association>> associations;
+
+    private RelationshipResolver(List<ForeignKey> foreignKeys, List<JoinTable> joinTables,
+            Map<String, List<Association>> associations) {
+        this.foreignKeys = foreignKeys;
+        this.joinTables = joinTables;
+        this.associations = associations;
+    }
+
+    static RelationshipResolver resolve(DiagramAnalysisResult analysisResult) {
+        Map<String, DiagramAnalysisResult.EntityMetadata> entities = new LinkedHashMap<>();
+        if (analysisResult.getEntities() != null) {
+            analysisResult.getEntities().forEach(entity -> entities.put(entity.getName(), entity));
+        }
+
+        Map<String, ForeignKey> foreignKeys = new LinkedHashMap<>();
+        Map<String, JoinTable> joinTables = new LinkedHashMap<>();
+        Set<String> navigableInverses = new HashSet<>(); // foreign keys and join tables mapped from both ends
+        List<DiagramAnalysisResult.RelationshipMetadata> relationships = analysisResult.getRelationships() != null
+                ? analysisResult.getRelationships()
+                : List.of();
+
+        for (DiagramAnalysisResult.RelationshipMetadata rel : relationships) {
+            DiagramAnalysisResult.EntityMetadata source = entities.get(rel.getSourceEntity());
+            DiagramAnalysisResult.EntityMetadata target = entities.get(rel.getTargetEntity());
+            if (source == null || target == null || rel.getType() == null) {
+                log.warn("Skipping relationship {} -> {} ({}): unknown entity or type",
+                        rel.getSourceEntity(), rel.getTargetEntity(), rel.getType());
+                continue;
+            }
+
+            switch (rel.getType()) {
+                // The parent declared the one-to-many, so it wants the collection as well
+                case ONE_TO_MANY -> add(foreignKeys, navigableInverses, foreignKey(target, source, null, false), true);
+                case MANY_TO_ONE -> add(foreignKeys, navigableInverses, foreignKey(source, target, null, false),
+                        rel.isBidirectional());
+                case ONE_TO_ONE -> add(foreignKeys, navigableInverses, foreignKey(source, target, null, true),
+                        rel.isBidirectional());
+                case MANY_TO_MANY -> {
+                    String sourceTable = tableName(source);
+                    String targetTable = tableName(target);
+                    // One join table per entity pair, whichever end the diagram declared it from
+                    String name = sourceTable.compareTo(targetTable) <= 0
+                            ? sourceTable + "_" + targetTable
+                            : targetTable + "_" + sourceTable;
+                    JoinTable existing = joinTables.get(name);
+                    if (existing != null) {
+                        if (!existing.source().referencedEntity().equals(source.getName())) {
+                            navigableInverses.add(name); // declared again, from the other end
+                        }
+                    } else {
+                        if (rel.isBidirectional()) {
+                            navigableInverses.add(name);
+                        }
+                        ForeignKey sourceKey = foreignKey(null, source, name, false);
+                        ForeignKey targetKey = foreignKey(null, target, name, false);
+                        if (sourceKey.column().equals(targetKey.column())) { // self-referencing
+                            targetKey = new ForeignKey(null, name, "related_" + targetKey.column(),
+                                    targetKey.referencedEntity(), targetKey.referencedTable(),
+                                    targetKey.referencedColumn(), targetKey.referencedKey(), false);
+                        }
+                        joinTables.put(name, new JoinTable(name, sourceKey, targetKey));
+                    }
+                }
+            }
+        }
+
+        return new RelationshipResolver(List.copyOf(foreignKeys.values()), List.copyOf(joinTables.values()),
+                associations(entities, foreignKeys.values(), joinTables.values(), navigableInverses));
+    }
+
+    List<ForeignKey> getForeignKeys() {
+        return foreignKeys;
+    }
+
+    /**
+     * Foreign keys held by the given entity table
+     */
+    List<ForeignKey> foreignKeysOf(String table) {
+        return foreignKeys.stream().filter(fk -> fk.table().equals(table)).toList();
+    }
+
+    List<JoinTable> getJoinTables() {
+        return joinTables;
+    }
+
+    /**
+     * Association fields of the entity, owning sides first
+     */
+    List<Association> associationsOf(String entityName) {
+        return associations.getOrDefault(entityName, List.of());
+    }
+
+    /**
+     * Whether another entity holds a to-one reference to this one
+     */
+    boolean isReferenced(String entityName) {
+        return foreignKeys.stream().anyMatch(fk -> fk.referencedEntity().equals(entityName));
+    }
+
+    /**
+     * Named entity graph of the to-one associations
+     */
+    static String referencesGraph(String entityName) {
+        return entityName + ".references";
+    }
+
+    /**
+     * Named entity graph of all associations
+     */
+    static String associationsGraph(String entityName) {
+        return entityName + ".associations";
+    }
+
+    static String tableName(DiagramAnalysisResult.EntityMetadata entity) {
+        return entity.getTableName() != null && !entity.getTableName().isBlank()
+                ? entity.getTableName()
+                : toSnakeCase(entity.getName());
+    }
+
+    static String toSnakeCase(String camelCase) {
+        return camelCase
+                .replaceAll("([a-z])([A-Z])", "$1_$2")
+                .toLowerCase();
+    }
+
+    private static void add(Map<String, ForeignKey> foreignKeys, Set<String> navigableInverses,
+            ForeignKey foreignKey, boolean inverse) {
+        String key = key(foreignKey);
+        foreignKeys.putIfAbsent(key, foreignKey);
+        if (inverse) {
+            navigableInverses.add(key);
+        }
+    }
+
+    private static String key(ForeignKey foreignKey) {
+        return foreignKey.table() + "." + foreignKey.column();
+    }
+
+    /**
+     * Field names avoid the entity's attributes and each other; owning fields are named first
+     * so that the inverse sides can refer to them
+     */
+    private static Map<String, List<Association>> associations(
+            Map<String, DiagramAnalysisResult.EntityMetadata> entities, Collection<ForeignKey> foreignKeys,
+            Collection<JoinTable> joinTables, Set<String> navigableInverses) {
+        Map<String, Set<String>> usedNames = new HashMap<>();
+        entities.forEach((name, entity) -> {
+            Set<String> used = new HashSet<>();
+            if (entity.getAttributes() != null) {
+                entity.getAttributes().forEach(attr -> used.add(attr.getName()));
+            }
+            usedNames.put(name, used);
+        });
+        Map<String, List<Association>> associations = new LinkedHashMap<>();
+
+        Map<ForeignKey, String> owningFields = new HashMap<>();
+        for (ForeignKey fk : foreignKeys) {
+            String field = fieldName(usedNames.get(fk.ownerEntity()), EntityKeys.uncapitalize(fk.referencedEntity()));
+            owningFields.put(fk, field);
+            associations.computeIfAbsent(fk.ownerEntity(), name -> new ArrayList<>()).add(new Association(field,
+                    fk.unique() ? AssociationType.ONE_TO_ONE : AssociationType.MANY_TO_ONE,
+                    fk.referencedEntity(), null, fk, null));
+        }
+        Map<JoinTable, String> owningCollections = new HashMap<>();
+        for (JoinTable joinTable : joinTables) {
+            String owner = joinTable.source().referencedEntity();
+            String target = joinTable.target().referencedEntity();
+            String field = fieldName(usedNames.get(owner), EntityKeys.uncapitalize(target) + "s");
+            owningCollections.put(joinTable, field);
+            associations.computeIfAbsent(owner, name -> new ArrayList<>()).add(new Association(field,
+                    AssociationType.MANY_TO_MANY, target, null, null, joinTable));
+        }
+
+        for (ForeignKey fk : foreignKeys) {
+            if (navigableInverses.contains(key(fk))) {
+                String owner = fk.referencedEntity();
+                String base = EntityKeys.uncapitalize(fk.ownerEntity()) + (fk.unique() ? "" : "s");
+                associations.computeIfAbsent(owner, name -> new ArrayList<>()).add(new Association(
+                        fieldName(usedNames.get(owner), base),
+                        fk.unique() ? AssociationType.ONE_TO_ONE : AssociationType.ONE_TO_MANY,
+                        fk.ownerEntity(), owningFields.get(fk), fk, null));
+            }
+        }
+        for (JoinTable joinTable : joinTables) {
+            if (navigableInverses.contains(joinTable.name())) {
+                String owner = joinTable.target().referencedEntity();
+                String source = joinTable.source().referencedEntity();
+                associations.computeIfAbsent(owner, name -> new ArrayList<>()).add(new Association(
+                        fieldName(usedNames.get(owner), EntityKeys.uncapitalize(source) + "s"),
+                        AssociationType.MANY_TO_MANY, source, owningCollections.get(joinTable), null, joinTable));
+            }
+        }
+        return associations;
+    }
+
+    private static String fieldName(Set<String> used, String base) {
+        String name = base;
+        for (int i = 2; !used.add(name); i++) {
+            name = base + i;
+        }
+        return name;
+    }
+
+    /**
+     * Key on {@code owner} (or on {@code joinTable} when owner is null) pointing at {@code referenced}
+     */
+    private static ForeignKey foreignKey(DiagramAnalysisResult.EntityMetadata owner,
+            DiagramAnalysisResult.EntityMetadata referenced, String joinTable, boolean unique) {
+        String referencedColumn = toSnakeCase(EntityKeys.primaryKeyName(referenced));
+        return new ForeignKey(owner != null ? owner.getName() : null,
+                owner != null ? tableName(owner) : joinTable,
+                toSnakeCase(referenced.getName()) + "_" + referencedColumn,
+                referenced.getName(), tableName(referenced), referencedColumn, primaryKey(referenced), unique);
+    }
+
+    private static DiagramAnalysisResult.AttributeMetadata primaryKey(DiagramAnalysisResult.EntityMetadata entity) {
+        if (entity.getAttributes() != null) {
+            for (DiagramAnalysisResult.AttributeMetadata attr : entity.getAttributes()) {
+                if (attr.isPrimaryKey()) {
+                    return attr;
+                }
+            }
+        }
+        return null;
+    }
+}
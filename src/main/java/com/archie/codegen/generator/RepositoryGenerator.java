@@ -1,35 +1,77 @@
 package com.archie.codegen.generator;
 
 import com.archie.ai.model.DiagramAnalysisResult;
+import com.archie.config.ArchieConfig;
 import com.squareup.javapoet.*;
+import jakarta.persistence.QueryHint;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Repository;
 
 import javax.lang.model.element.Modifier;
+import java.io.IOException;
+import java.util.Collection;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Generates Spring Data JPA repository interfaces using JavaPoet
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class RepositoryGenerator {
 
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    private final ArchieConfig config;
+
     /**
      * Generate repository interface for an entity
      */
-    public String generateRepository(DiagramAnalysisResult.EntityMetadata entity, String basePackage) {
+    public String generateRepository(DiagramAnalysisResult.EntityMetadata entity,
+            DiagramAnalysisResult analysisResult) {
+        return buildRepositoryFile(entity, analysisResult).toString();
+    }
+
+    /**
+     * Write the repository source straight to the output
+     */
+    public void writeRepository(DiagramAnalysisResult.EntityMetadata entity, DiagramAnalysisResult analysisResult,
+            Appendable out) throws IOException {
+        buildRepositoryFile(entity, analysisResult).writeTo(out);
+    }
+
+    /**
+     * Build the JavaPoet file for the repository
+     */
+    private JavaFile buildRepositoryFile(DiagramAnalysisResult.EntityMetadata entity,
+            DiagramAnalysisResult analysisResult) {
         try {
             log.debug("Generating repository for: {}", entity.getName());
 
+            String basePackage = analysisResult.getBasePackage();
+            List<RelationshipResolver.Association> associations = RelationshipResolver.resolve(analysisResult)
+                    .associationsOf(entity.getName());
+            // List queries fetch the to-one references in the same select, see EntityGenerator
+            String referencesGraph = associations.stream().anyMatch(a -> !a.isCollection())
+                    ? RelationshipResolver.referencesGraph(entity.getName())
+                    : null;
+
             String entityClassName = entity.getName();
             String repositoryName = entityClassName + "Repository";
 
-            // Get ID type (assume Long for now)
-            Class<?> idType = Long.class;
+            Class<?> idType = EntityKeys.idType(config.getGeneration().getIdStrategy());
 
             // Create entity type reference
             ClassName entityType = ClassName.get(basePackage + ".entity", entityClassName);
@@ -40,22 +82,34 @@ public class RepositoryGenerator {
                     entityType,
                     TypeName.get(idType));
 
+            String primaryKey = EntityKeys.capitalize(EntityKeys.primaryKeyName(entity));
+
             // Build repository interface
-            TypeSpec repository = TypeSpec.interfaceBuilder(repositoryName)
+            TypeSpec.Builder repository = TypeSpec.interfaceBuilder(repositoryName)
                     .addModifiers(Modifier.PUBLIC)
                     .addAnnotation(Repository.class)
                     .addSuperinterface(superInterface)
                     .addJavadoc("Spring Data JPA repository for $L entity\n", entityClassName)
                     .addJavadoc("Provides CRUD operations and custom query methods\n")
-                    .build();
+                    .addMethod(generateSliceMethod(entityType, referencesGraph))
+                    .addMethod(generateKeysetMethod(entityType, primaryKey, idType, referencesGraph))
+                    .addMethod(generateStreamMethod(entityType, primaryKey));
+            for (DiagramAnalysisResult.AttributeMetadata attr : EntityKeys.lookupAttributes(entity)) {
+                repository.addMethod(generateLookupMethod(entityType, attr));
+            }
+            if (!associations.isEmpty()) {
+                String associationsGraph = RelationshipResolver.associationsGraph(entityClassName);
+                repository.addMethod(generateAggregateMethod(entityType, primaryKey, idType, associationsGraph));
+                repository.addMethod(generateAggregatesMethod(entityType, primaryKey, idType, associationsGraph));
+            }
 
             // Generate Java file
-            JavaFile javaFile = JavaFile.builder(basePackage + ".repository", repository)
+            JavaFile javaFile = JavaFile.builder(basePackage + ".repository", repository.build())
                     .addFileComment("Auto-generated by Archie - Blueprint to Boot")
                     .indent("    ")
                     .build();
 
-            return javaFile.toString();
+            return javaFile;
 
         } catch (Exception e) {
             log.error("Error generating repository for {}: {}", entity.getName(), e.getMessage(), e);
@@ -63,6 +117,91 @@ public class RepositoryGenerator {
         }
     }
 
+    /**
+     * Page without the count query that Page would need
+     */
+    private MethodSpec generateSliceMethod(ClassName entityType, String graph) {
+        return withGraph(MethodSpec.methodBuilder("findAllBy"), graph)
+                .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+                .addParameter(Pageable.class, "pageable")
+                .returns(ParameterizedTypeName.get(ClassName.get(Slice.class), entityType))
+                .build();
+    }
+
+    /**
+     * Keyset pagination: the next rows after the last key seen, served from the primary key index
+     */
+    private MethodSpec generateKeysetMethod(ClassName entityType, String primaryKey, Class<?> idType, String graph) {
+        return withGraph(MethodSpec.methodBuilder("findBy" + primaryKey + "GreaterThan"), graph)
+                .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+                .addParameter(idType, "after")
+                .addParameter(Pageable.class, "pageable")
+                .returns(ParameterizedTypeName.get(ClassName.get(List.class), entityType))
+                .build();
+    }
+
+    /**
+     * Cursor over the whole table; rows are fetched from JDBC in batches of STREAM_FETCH_SIZE
+     */
+    private MethodSpec generateStreamMethod(ClassName entityType, String primaryKey) {
+        return MethodSpec.methodBuilder("streamAllByOrderBy" + primaryKey + "Asc")
+                .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+                .addAnnotation(AnnotationSpec.builder(QueryHints.class)
+                        .addMember("value", "$L", AnnotationSpec.builder(QueryHint.class)
+                                .addMember("name", "$T.HINT_FETCH_SIZE", HibernateHints.class)
+                                .addMember("value", "$S", String.valueOf(STREAM_FETCH_SIZE))
+                                .build())
+                        .build())
+                .addJavadoc("Must be called inside a transaction and closed after use\n")
+                .returns(ParameterizedTypeName.get(ClassName.get(Stream.class), entityType))
+                .build();
+    }
+
+    /**
+     * Lookup on a unique attribute, served from its uk_ index in schema.sql
+     */
+    private MethodSpec generateLookupMethod(ClassName entityType, DiagramAnalysisResult.AttributeMetadata attr) {
+        return MethodSpec.methodBuilder("findBy" + EntityKeys.capitalize(attr.getName()))
+                .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+                .addParameter(EntityKeys.javaType(attr.getType()), attr.getName())
+                .returns(ParameterizedTypeName.get(ClassName.get(Optional.class), entityType))
+                .build();
+    }
+
+    /**
+     * One aggregate with all of its associations, in a single select
+     */
+    private MethodSpec generateAggregateMethod(ClassName entityType, String primaryKey, Class<?> idType,
+            String graph) {
+        return withGraph(MethodSpec.methodBuilder("findWithAssociationsBy" + primaryKey), graph)
+                .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+                .addParameter(idType, EntityKeys.uncapitalize(primaryKey))
+                .returns(ParameterizedTypeName.get(ClassName.get(Optional.class), entityType))
+                .build();
+    }
+
+    /**
+     * Several aggregates with all of their associations, in a single select
+     */
+    private MethodSpec generateAggregatesMethod(ClassName entityType, String primaryKey, Class<?> idType,
+            String graph) {
+        return withGraph(MethodSpec.methodBuilder("findAllWithAssociationsBy" + primaryKey + "In"), graph)
+                .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+                .addParameter(ParameterizedTypeName.get(Collection.class, idType),
+                        EntityKeys.uncapitalize(primaryKey) + "s")
+                .returns(ParameterizedTypeName.get(ClassName.get(List.class), entityType))
+                .build();
+    }
+
+    private MethodSpec.Builder withGraph(MethodSpec.Builder method, String graph) {
+        if (graph != null) {
+            method.addAnnotation(AnnotationSpec.builder(EntityGraph.class)
+                    .addMember("value", "$S", graph)
+                    .build());
+        }
+        return method;
+    }
+
     /**
      * Generate all repositories from analysis result
      */
@@ -70,7 +209,7 @@ public class RepositoryGenerator {
         Map<String, String> generatedRepositories = new LinkedHashMap<>();
 
         for (DiagramAnalysisResult.EntityMetadata entity : analysisResult.getEntities()) {
-            String repositoryCode = generateRepository(entity, analysisResult.getBasePackage());
+            String repositoryCode = generateRepository(entity, analysisResult);
             String fileName = entity.getName() + "Repository.java";
             generatedRepositories.put(fileName, repositoryCode);
         }
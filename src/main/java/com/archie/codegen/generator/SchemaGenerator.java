@@ -1,93 +1,212 @@
 package com.archie.codegen.generator;
 
 import com.archie.ai.model.DiagramAnalysisResult;
+import com.archie.config.ArchieConfig;
+import com.archie.config.DatabaseType;
+import com.archie.config.IdStrategy;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.StringJoiner;
 
 /**
- * Generates SQL DDL schema from entity metadata
+ * Generates SQL DDL schema from entity metadata: tables, join tables, indexes and foreign keys
+ * in the syntax of the target database
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class SchemaGenerator {
 
+    private static final int MAX_IDENTIFIER_LENGTH = 60; // PostgreSQL truncates at 63, MySQL rejects above 64
+
+    private final ArchieConfig config;
+
     /**
      * Generate SQL schema file
      */
-    public String generateSchema(DiagramAnalysisResult analysisResult) {
-        log.info("Generating SQL schema for {} entities", analysisResult.getEntities().size());
-
+    public String generateSchema(DiagramAnalysisResult analysisResult, DatabaseType databaseType) {
         StringBuilder schema = new StringBuilder();
+        try {
+            writeSchema(analysisResult, databaseType, schema);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringBuilder never throws
+        }
+        return schema.toString();
+    }
+
+    /**
+     * Write the SQL schema straight to the output, one table at a time
+     */
+    public void writeSchema(DiagramAnalysisResult analysisResult, DatabaseType databaseType, Appendable schema)
+            throws IOException {
+        log.info("Generating {} SQL schema for {} entities", databaseType, analysisResult.getEntities().size());
+
+        RelationshipResolver relationships = RelationshipResolver.resolve(analysisResult);
+        // SQLite cannot add constraints to an existing table, its foreign keys go into CREATE TABLE
+        boolean inlineForeignKeys = databaseType == DatabaseType.SQLITE;
+        IdStrategy idStrategy = EntityKeys.idStrategy(config.getGeneration().getIdStrategy(), databaseType);
+
         schema.append("-- Auto-generated SQL Schema by Archie - Blueprint to Boot\n");
         schema.append("-- Generated from diagram analysis\n\n");
 
         // Drop tables in reverse order (for foreign key constraints)
         schema.append("-- Drop existing tables\n");
+        if (databaseType == DatabaseType.MYSQL) {
+            schema.append("SET FOREIGN_KEY_CHECKS = 0;\n"); // MySQL ignores CASCADE on DROP TABLE
+        }
+        for (RelationshipResolver.JoinTable joinTable : relationships.getJoinTables()) {
+            schema.append(dropTable(joinTable.name(), databaseType));
+        }
         for (int i = analysisResult.getEntities().size() - 1; i >= 0; i--) {
             DiagramAnalysisResult.EntityMetadata entity = analysisResult.getEntities().get(i);
-            schema.append(String.format("DROP TABLE IF EXISTS %s CASCADE;\n", entity.getTableName()));
+            schema.append(dropTable(RelationshipResolver.tableName(entity), databaseType));
+        }
+        if (databaseType == DatabaseType.MYSQL) {
+            schema.append("SET FOREIGN_KEY_CHECKS = 1;\n");
+        }
+        if (idStrategy == IdStrategy.SEQUENCE) {
+            for (DiagramAnalysisResult.EntityMetadata entity : analysisResult.getEntities()) {
+                schema.append(String.format("DROP SEQUENCE IF EXISTS %s;\n",
+                        EntityKeys.sequenceName(RelationshipResolver.tableName(entity))));
+            }
         }
         schema.append("\n");
 
         // Create tables
         for (DiagramAnalysisResult.EntityMetadata entity : analysisResult.getEntities()) {
-            schema.append(generateTableDDL(entity));
+            String table = RelationshipResolver.tableName(entity);
+            schema.append(generateTableDDL(entity, relationships.foreignKeysOf(table), databaseType, idStrategy,
+                    inlineForeignKeys));
+            if (idStrategy == IdStrategy.SEQUENCE) {
+                // Same increment as the allocationSize of the entity, as the pooled optimizer expects
+                schema.append(String.format("\nCREATE SEQUENCE %s START WITH 1 INCREMENT BY %d;\n",
+                        EntityKeys.sequenceName(table), config.getGeneration().getIdAllocationSize()));
+            }
             schema.append("\n");
         }
+        for (RelationshipResolver.JoinTable joinTable : relationships.getJoinTables()) {
+            schema.append(generateJoinTableDDL(joinTable, databaseType, idStrategy, inlineForeignKeys));
+            schema.append("\n");
+        }
+
+        // Indexes come before the constraints so that InnoDB reuses them instead of adding its own
+        schema.append("-- Indexes\n");
+        for (DiagramAnalysisResult.EntityMetadata entity : analysisResult.getEntities()) {
+            String table = RelationshipResolver.tableName(entity);
+            schema.append(generateIndexes(entity, relationships.foreignKeysOf(table)));
+        }
+        for (RelationshipResolver.JoinTable joinTable : relationships.getJoinTables()) {
+            // The leading primary key column is already indexed
+            schema.append(createIndex(false, joinTable.name(), joinTable.target().column()));
+        }
 
-        // Add foreign key constraints if relationships exist
-        if (analysisResult.getRelationships() != null && !analysisResult.getRelationships().isEmpty()) {
-            schema.append("-- Foreign Key Constraints\n");
-            for (DiagramAnalysisResult.RelationshipMetadata rel : analysisResult.getRelationships()) {
-                schema.append(generateForeignKeyConstraint(rel));
+        if (!inlineForeignKeys && (!relationships.getForeignKeys().isEmpty()
+                || !relationships.getJoinTables().isEmpty())) {
+            schema.append("\n-- Foreign Key Constraints\n");
+            for (RelationshipResolver.ForeignKey foreignKey : relationships.getForeignKeys()) {
+                schema.append(generateForeignKeyConstraint(foreignKey));
+            }
+            for (RelationshipResolver.JoinTable joinTable : relationships.getJoinTables()) {
+                schema.append(generateForeignKeyConstraint(joinTable.source()));
+                schema.append(generateForeignKeyConstraint(joinTable.target()));
             }
         }
+    }
 
-        return schema.toString();
+    private String dropTable(String table, DatabaseType databaseType) {
+        return databaseType == DatabaseType.SQLITE
+                ? String.format("DROP TABLE IF EXISTS %s;\n", table)
+                : String.format("DROP TABLE IF EXISTS %s CASCADE;\n", table);
     }
 
-    private String generateTableDDL(DiagramAnalysisResult.EntityMetadata entity) {
+    private String generateTableDDL(DiagramAnalysisResult.EntityMetadata entity,
+            List<RelationshipResolver.ForeignKey> foreignKeys, DatabaseType databaseType, IdStrategy idStrategy,
+            boolean inlineForeignKeys) {
+        String table = RelationshipResolver.tableName(entity);
         StringBuilder ddl = new StringBuilder();
         ddl.append(String.format("-- Table: %s\n", entity.getName()));
-        ddl.append(String.format("CREATE TABLE %s (\n", entity.getTableName()));
+        ddl.append(String.format("CREATE TABLE %s (\n", table));
 
         StringJoiner columns = new StringJoiner(",\n    ", "    ", "\n");
 
+        Set<String> columnNames = new HashSet<>();
         for (DiagramAnalysisResult.AttributeMetadata attr : entity.getAttributes()) {
-            columns.add(generateColumnDDL(attr));
+            columns.add(generateColumnDDL(attr, databaseType, idStrategy));
+            columnNames.add(RelationshipResolver.toSnakeCase(attr.getName()));
+        }
+
+        // Foreign key columns the diagram implies through relationships but does not list as attributes
+        for (RelationshipResolver.ForeignKey foreignKey : foreignKeys) {
+            if (columnNames.add(foreignKey.column())) {
+                columns.add(foreignKey.column() + " " + foreignKeyType(foreignKey, databaseType, idStrategy));
+            }
+        }
+        if (inlineForeignKeys) {
+            foreignKeys.forEach(foreignKey -> columns.add(foreignKeyClause(foreignKey)));
         }
 
         ddl.append(columns.toString());
-        ddl.append(");\n");
 
         // Add comments
-        if (!entity.getAttributes().isEmpty()) {
-            ddl.append(String.format("\nCOMMENT ON TABLE %s IS '%s entity table';\n",
-                    entity.getTableName(), entity.getName()));
+        if (!entity.getAttributes().isEmpty() && databaseType == DatabaseType.MYSQL) {
+            ddl.append(String.format(") COMMENT = '%s entity table';\n", entity.getName()));
+        } else {
+            ddl.append(");\n");
+            if (!entity.getAttributes().isEmpty() && databaseType != DatabaseType.SQLITE) {
+                ddl.append(String.format("\nCOMMENT ON TABLE %s IS '%s entity table';\n",
+                        table, entity.getName()));
+            }
         }
 
         return ddl.toString();
     }
 
-    private String generateColumnDDL(DiagramAnalysisResult.AttributeMetadata attr) {
+    private String generateJoinTableDDL(RelationshipResolver.JoinTable joinTable, DatabaseType databaseType,
+            IdStrategy idStrategy, boolean inlineForeignKeys) {
+        RelationshipResolver.ForeignKey source = joinTable.source();
+        RelationshipResolver.ForeignKey target = joinTable.target();
+
+        StringBuilder ddl = new StringBuilder();
+        ddl.append(String.format("-- Join table: %s <-> %s\n", source.referencedEntity(), target.referencedEntity()));
+        ddl.append(String.format("CREATE TABLE %s (\n", joinTable.name()));
+        ddl.append(String.format("    %s %s NOT NULL,\n", source.column(),
+                foreignKeyType(source, databaseType, idStrategy)));
+        ddl.append(String.format("    %s %s NOT NULL,\n", target.column(),
+                foreignKeyType(target, databaseType, idStrategy)));
+        ddl.append(String.format("    PRIMARY KEY (%s, %s)", source.column(), target.column()));
+        if (inlineForeignKeys) {
+            ddl.append(",\n    ").append(foreignKeyClause(source));
+            ddl.append(",\n    ").append(foreignKeyClause(target));
+        }
+        ddl.append("\n);\n");
+        return ddl.toString();
+    }
+
+    private String generateColumnDDL(DiagramAnalysisResult.AttributeMetadata attr, DatabaseType databaseType,
+            IdStrategy idStrategy) {
         StringBuilder column = new StringBuilder();
-        column.append(toSnakeCase(attr.getName()));
+        column.append(RelationshipResolver.toSnakeCase(attr.getName()));
         column.append(" ");
-        column.append(getSQLType(attr));
 
         if (attr.isPrimaryKey()) {
-            column.append(" PRIMARY KEY");
+            column.append(primaryKeyType(attr, databaseType, idStrategy));
+            column.append(primaryKeyClause(databaseType, idStrategy));
+        } else {
+            column.append(getSQLType(attr));
         }
 
         if (!attr.isNullable()) {
             column.append(" NOT NULL");
         }
 
-        if (attr.isUnique() && !attr.isPrimaryKey()) {
-            column.append(" UNIQUE");
-        }
+        // Unique columns get a named unique index, see generateIndexes
 
         if (attr.getDefaultValue() != null) {
             column.append(" DEFAULT ").append(attr.getDefaultValue());
@@ -96,44 +215,119 @@ public class SchemaGenerator {
         return column.toString();
     }
 
-    private String getSQLType(DiagramAnalysisResult.AttributeMetadata attr) {
-        String type = attr.getType().toLowerCase();
-
-        return switch (type) {
-            case "long", "bigint" -> "BIGINT";
-            case "integer", "int" -> "INTEGER";
-            case "string", "varchar" -> {
-                int length = attr.getLength() != null ? attr.getLength() : 255;
-                yield "VARCHAR(" + length + ")";
+    /**
+     * Unique attributes, foreign key columns and configured lookup columns, each indexed once
+     */
+    private String generateIndexes(DiagramAnalysisResult.EntityMetadata entity,
+            List<RelationshipResolver.ForeignKey> foreignKeys) {
+        String table = RelationshipResolver.tableName(entity);
+        Set<String> lookupColumns = new HashSet<>();
+        for (String name : config.getGeneration().getLookupColumns()) {
+            lookupColumns.add(RelationshipResolver.toSnakeCase(name));
+        }
+
+        StringBuilder indexes = new StringBuilder();
+        Set<String> indexed = new HashSet<>();
+        for (DiagramAnalysisResult.AttributeMetadata attr : entity.getAttributes()) {
+            String column = RelationshipResolver.toSnakeCase(attr.getName());
+            if (attr.isPrimaryKey()) {
+                indexed.add(column);
+            } else if (attr.isUnique() && indexed.add(column)) {
+                indexes.append(createIndex(true, table, column));
             }
-            case "text" -> "TEXT";
-            case "boolean", "bool" -> "BOOLEAN";
-            case "double" -> "DOUBLE PRECISION";
-            case "float" -> "REAL";
-            case "bigdecimal", "decimal" -> "DECIMAL(19,2)";
-            case "date" -> "DATE";
-            case "timestamp", "datetime", "localdatetime" -> "TIMESTAMP";
-            default -> "VARCHAR(255)";
-        };
+        }
+        for (RelationshipResolver.ForeignKey foreignKey : foreignKeys) {
+            if (indexed.add(foreignKey.column())) {
+                indexes.append(createIndex(foreignKey.unique(), table, foreignKey.column()));
+            }
+        }
+        for (DiagramAnalysisResult.AttributeMetadata attr : entity.getAttributes()) {
+            String column = RelationshipResolver.toSnakeCase(attr.getName());
+            if (lookupColumns.contains(column) && indexed.add(column)) {
+                indexes.append(createIndex(false, table, column));
+            }
+        }
+        return indexes.toString();
+    }
+
+    private String createIndex(boolean unique, String table, String column) {
+        return String.format("CREATE %sINDEX %s ON %s (%s);\n", unique ? "UNIQUE " : "",
+                identifier(unique ? "uk" : "idx", table, column), table, column);
+    }
+
+    private String getSQLType(DiagramAnalysisResult.AttributeMetadata attr) {
+        return EntityKeys.columnType(attr.getType()).sqlType(attr.getLength());
+    }
+
+    private String generateForeignKeyConstraint(RelationshipResolver.ForeignKey foreignKey) {
+        return String.format("ALTER TABLE %s ADD %s;\n", foreignKey.table(), foreignKeyClause(foreignKey));
+    }
+
+    private String foreignKeyClause(RelationshipResolver.ForeignKey foreignKey) {
+        return String.format("CONSTRAINT %s FOREIGN KEY (%s) REFERENCES %s (%s)",
+                identifier("fk", foreignKey.table(), foreignKey.column()),
+                foreignKey.column(),
+                foreignKey.referencedTable(),
+                foreignKey.referencedColumn());
     }
 
-    private String generateForeignKeyConstraint(DiagramAnalysisResult.RelationshipMetadata rel) {
-        // Simplified foreign key generation
-        String sourceTable = toSnakeCase(rel.getSourceEntity());
-        String targetTable = toSnakeCase(rel.getTargetEntity());
+    /**
+     * Column type matching the referenced primary key, BIGINT when the diagram marks none
+     */
+    private String foreignKeyType(RelationshipResolver.ForeignKey foreignKey, DatabaseType databaseType,
+            IdStrategy idStrategy) {
+        if (foreignKey.referencedKey() != null) {
+            return primaryKeyType(foreignKey.referencedKey(), databaseType, idStrategy);
+        }
+        return idStrategy == IdStrategy.UUID ? uuidType(databaseType) : "BIGINT";
+    }
+
+    private String primaryKeyType(DiagramAnalysisResult.AttributeMetadata attr, DatabaseType databaseType,
+            IdStrategy idStrategy) {
+        if (idStrategy == IdStrategy.UUID) {
+            return uuidType(databaseType);
+        }
+        if (idStrategy == IdStrategy.IDENTITY && databaseType == DatabaseType.SQLITE) {
+            return "INTEGER"; // AUTOINCREMENT only works on the rowid alias
+        }
+        return getSQLType(attr);
+    }
+
+    /**
+     * Primary key constraint, with the auto-increment syntax of the database for IDENTITY ids
+     */
+    private String primaryKeyClause(DatabaseType databaseType, IdStrategy idStrategy) {
+        if (idStrategy != IdStrategy.IDENTITY) {
+            return " PRIMARY KEY";
+        }
+        return switch (databaseType) {
+            case POSTGRESQL, H2 -> " GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY";
+            case MYSQL -> " AUTO_INCREMENT PRIMARY KEY";
+            case SQLITE -> " PRIMARY KEY AUTOINCREMENT";
+            case MONGODB -> " PRIMARY KEY";
+        };
+    }
 
-        return String.format(
-                "-- ALTER TABLE %s ADD CONSTRAINT fk_%s_%s FOREIGN KEY (%s_id) REFERENCES %s(id);\n",
-                sourceTable,
-                sourceTable,
-                targetTable,
-                targetTable,
-                targetTable);
+    /**
+     * Column type Hibernate uses for java.util.UUID on the database
+     */
+    private String uuidType(DatabaseType databaseType) {
+        return switch (databaseType) {
+            case MYSQL -> "BINARY(16)";
+            case SQLITE -> "BLOB";
+            default -> "UUID";
+        };
     }
 
-    private String toSnakeCase(String camelCase) {
-        return camelCase
-                .replaceAll("([a-z])([A-Z])", "$1_$2")
-                .toLowerCase();
+    /**
+     * Constraint or index name, shortened with a hash suffix when it would exceed the identifier limit
+     */
+    private String identifier(String prefix, String table, String column) {
+        String name = prefix + "_" + table + "_" + column;
+        if (name.length() <= MAX_IDENTIFIER_LENGTH) {
+            return name;
+        }
+        String hash = Integer.toHexString(name.hashCode());
+        return name.substring(0, MAX_IDENTIFIER_LENGTH - hash.length() - 1) + "_" + hash;
     }
 }
@@ -0,0 +1,85 @@
+package com.archie.codegen.generator;
+
+import com.archie.ai.model.DiagramAnalysisResult;
+import org.springframework.stereotype.Component;
+
+/**
+ * Generates service classes from class diagram services and flowchart logic
+ */
+@Component
+public class ServiceGenerator {
+
+    /**
+     * Generate a service class skeleton from service metadata
+     */
+    public String generateService(String basePackage, DiagramAnalysisResult.ServiceMetadata service) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("package %s.service;\n\n", basePackage));
+        sb.append("import org.springframework.stereotype.Service;\n");
+        sb.append("import lombok.RequiredArgsConstructor;\n");
+        sb.append("import lombok.extern.slf4j.Slf4j;\n\n");
+        sb.append("/**\n * ").append(service.getDescription()).append("\n */\n");
+        sb.append("@Slf4j\n@Service\n@RequiredArgsConstructor\n");
+        sb.append("public class ").append(service.getName()).append(" {\n\n");
+
+        if (service.getMethods() != null) {
+            for (DiagramAnalysisResult.MethodMetadata method : service.getMethods()) {
+                sb.append("    /**\n     * ").append(method.getDescription()).append("\n     */\n");
+                sb.append("    public ").append(method.getReturnType() != null ? method.getReturnType() : "void");
+                sb.append(" ").append(method.getName()).append("(");
+                if (method.getParameters() != null) {
+                    sb.append(String.join(", ", method.getParameters()));
+                }
+                sb.append(") {\n");
+                if (method.getAlgorithm() != null) {
+                    sb.append("        // Algorithm:\n");
+                    for (String step : method.getAlgorithm().split("\\\\n")) {
+                        sb.append("        // ").append(step).append("\n");
+                    }
+                }
+                sb.append("        // TODO: Implement ").append(method.getName()).append("\n");
+                if (method.getReturnType() != null && !"void".equals(method.getReturnType())) {
+                    sb.append("        return null;\n");
+                }
+                sb.append("    }\n\n");
+            }
+        }
+
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * Generate a service implementing the flowchart steps
+     */
+    public String generateFlowchartService(DiagramAnalysisResult analysisResult) {
+        DiagramAnalysisResult.FlowchartLogic logic = analysisResult.getFlowchartLogic();
+        StringBuilder sb = new StringBuilder();
+
+        sb.append(String.format("package %s.service;\n\n", analysisResult.getBasePackage()));
+        sb.append("import org.springframework.stereotype.Service;\n");
+        sb.append("import lombok.extern.slf4j.Slf4j;\n\n");
+        sb.append("/**\n * ").append(logic.getDescription()).append("\n");
+        sb.append(" * Generated from flowchart diagram\n */\n");
+        sb.append("@Slf4j\n@Service\n");
+        sb.append("public class ").append(logic.getServiceName()).append(" {\n\n");
+        sb.append("    /**\n     * Execute the flowchart logic\n     */\n");
+        sb.append("    public void ").append(logic.getMethodName()).append("() {\n");
+        sb.append("        log.info(\"Starting: ").append(logic.getDescription()).append("\");\n\n");
+
+        // Generate code from steps
+        if (logic.getSteps() != null) {
+            for (DiagramAnalysisResult.FlowchartStep step : logic.getSteps()) {
+                sb.append("        // ").append(step.getDescription()).append("\n");
+                if (step.getCode() != null && !step.getCode().isEmpty()) {
+                    sb.append("        ").append(step.getCode()).append("\n");
+                }
+            }
+        }
+
+        sb.append("\n        log.info(\"Completed: ").append(logic.getDescription()).append("\");\n");
+        sb.append("    }\n}\n");
+
+        return sb.toString();
+    }
+}
@@ -1,5 +1,8 @@
 package com.archie.codegen.model;
 
+import com.archie.ai.model.DiagramAnalysisResult;
+import com.archie.config.DatabaseType;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -22,6 +25,10 @@ public class GeneratedProject {
     private Map<String, String> generatedFiles; // filepath -> content
     private String generatedAt;
     private GenerationStatistics statistics;
+    @JsonIgnore
+    private DiagramAnalysisResult analysisResult; // input of this generation, diffed by incremental regeneration
+    @JsonIgnore
+    private DatabaseType databaseType;
 
     @Data
     @Builder
@@ -33,5 +40,12 @@ public class GeneratedProject {
         private int controllerCount;
         private int totalFiles;
         private long generationTimeMs;
+        private long originalImageBytes;
+        private long processedImageBytes;
+        private long imageBytesSaved;
+        private Integer regeneratedFiles; // incremental regeneration only
+        private Integer reusedFiles; // carried over unchanged, including user edits
+        private Map<String, Long> generatorTimings; // generator -> wall time in microseconds
+        private Map<String, Long> stageTimings; // stage -> wall time in ms (storage, preprocessing, analysis, generation)
     }
 }
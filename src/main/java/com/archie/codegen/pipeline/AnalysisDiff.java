@@ -0,0 +1,144 @@
+package com.archie.codegen.pipeline;
+
+import com.archie.ai.model.DiagramAnalysisResult;
+import com.archie.config.DatabaseType;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Structural diff of two analysis results, keyed by entity and service name.
+ * Tells incremental regeneration which generated files are affected by a change,
+ * see {@link ProjectGenerator#isAffected}.
+ */
+public final class AnalysisDiff {
+
+    private final boolean fullRegeneration;
+    private final Set<String> changedEntities;
+    private final Set<String> changedServices;
+    private final boolean flowchartChanged;
+    private final boolean schemaChanged;
+    private final boolean readmeChanged;
+
+    private AnalysisDiff(boolean fullRegeneration, Set<String> changedEntities, Set<String> changedServices,
+            boolean flowchartChanged, boolean schemaChanged, boolean readmeChanged) {
+        this.fullRegeneration = fullRegeneration;
+        this.changedEntities = changedEntities;
+        this.changedServices = changedServices;
+        this.flowchartChanged = flowchartChanged;
+        this.schemaChanged = schemaChanged;
+        this.readmeChanged = readmeChanged;
+    }
+
+    public static AnalysisDiff between(DiagramAnalysisResult previous, DatabaseType previousDatabase,
+            DiagramAnalysisResult current, DatabaseType currentDatabase) {
+        // Project name, package and database appear in nearly every file and in the file paths
+        if (previous == null || previousDatabase != currentDatabase
+                || !Objects.equals(previous.getProjectName(), current.getProjectName())
+                || !Objects.equals(previous.getBasePackage(), current.getBasePackage())) {
+            return new AnalysisDiff(true, Set.of(), Set.of(), true, true, true);
+        }
+
+        Map<String, DiagramAnalysisResult.EntityMetadata> oldEntities = byName(previous.getEntities());
+        Map<String, DiagramAnalysisResult.EntityMetadata> newEntities = byName(current.getEntities());
+        Set<String> changedEntities = changedKeys(oldEntities, newEntities);
+        changedEntities.addAll(associatedEntities(previous.getRelationships(), current.getRelationships(),
+                new HashSet<>(changedEntities)));
+
+        Set<String> changedServices = changedKeys(serviceByName(previous.getServices()),
+                serviceByName(current.getServices()));
+
+        boolean schemaChanged = !changedEntities.isEmpty()
+                || !oldEntities.keySet().equals(newEntities.keySet())
+                || !Objects.equals(previous.getRelationships(), current.getRelationships());
+        boolean readmeChanged = oldEntities.size() != newEntities.size()
+                || !Objects.equals(previous.getDiagramType(), current.getDiagramType());
+
+        return new AnalysisDiff(false, changedEntities, changedServices,
+                !Objects.equals(previous.getFlowchartLogic(), current.getFlowchartLogic()),
+                schemaChanged, readmeChanged);
+    }
+
+    public boolean isFullRegeneration() {
+        return fullRegeneration;
+    }
+
+    /**
+     * Entity added, removed or modified; its entity, repository and controller are affected
+     */
+    public boolean entityChanged(String name) {
+        return fullRegeneration || changedEntities.contains(name);
+    }
+
+    public boolean serviceChanged(String name) {
+        return fullRegeneration || changedServices.contains(name);
+    }
+
+    public boolean flowchartChanged() {
+        return fullRegeneration || flowchartChanged;
+    }
+
+    public boolean schemaChanged() {
+        return fullRegeneration || schemaChanged;
+    }
+
+    public boolean readmeChanged() {
+        return fullRegeneration || readmeChanged;
+    }
+
+    /**
+     * Associations are generated on both ends of a relationship, so a relationship that was added or
+     * removed, or whose entity on one end changed, also changes the entity on the other end
+     */
+    private static Set<String> associatedEntities(List<DiagramAnalysisResult.RelationshipMetadata> previous,
+            List<DiagramAnalysisResult.RelationshipMetadata> current, Set<String> changedEntities) {
+        Set<DiagramAnalysisResult.RelationshipMetadata> before = previous != null ? new HashSet<>(previous) : Set.of();
+        Set<DiagramAnalysisResult.RelationshipMetadata> after = current != null ? new HashSet<>(current) : Set.of();
+        Set<DiagramAnalysisResult.RelationshipMetadata> all = new HashSet<>(before);
+        all.addAll(after);
+
+        Set<String> affected = new HashSet<>();
+        for (DiagramAnalysisResult.RelationshipMetadata rel : all) {
+            if (before.contains(rel) != after.contains(rel)
+                    || changedEntities.contains(rel.getSourceEntity())
+                    || changedEntities.contains(rel.getTargetEntity())) {
+                affected.add(rel.getSourceEntity());
+                affected.add(rel.getTargetEntity());
+            }
+        }
+        return affected;
+    }
+
+    private static Map<String, DiagramAnalysisResult.EntityMetadata> byName(
+            List<DiagramAnalysisResult.EntityMetadata> entities) {
+        Map<String, DiagramAnalysisResult.EntityMetadata> byName = new LinkedHashMap<>();
+        if (entities != null) {
+            entities.forEach(entity -> byName.put(entity.getName(), entity));
+        }
+        return byName;
+    }
+
+    private static Map<String, DiagramAnalysisResult.ServiceMetadata> serviceByName(
+            List<DiagramAnalysisResult.ServiceMetadata> services) {
+        Map<String, DiagramAnalysisResult.ServiceMetadata> byName = new LinkedHashMap<>();
+        if (services != null) {
+            services.forEach(service -> byName.put(service.getName(), service));
+        }
+        return byName;
+    }
+
+    private static <T> Set<String> changedKeys(Map<String, T> previous, Map<String, T> current) {
+        Set<String> changed = new HashSet<>();
+        previous.forEach((name, value) -> {
+            if (!Objects.equals(value, current.get(name))) {
+                changed.add(name);
+            }
+        });
+        current.keySet().stream().filter(name -> !previous.containsKey(name)).forEach(changed::add);
+        return changed;
+    }
+}
@@ -0,0 +1,238 @@
+package com.archie.codegen.pipeline;
+
+import com.archie.ai.model.DiagramAnalysisResult;
+import com.archie.codegen.generator.CacheConfigGenerator;
+import com.archie.codegen.generator.ControllerGenerator;
+import com.archie.codegen.generator.EntityGenerator;
+import com.archie.codegen.generator.RepositoryGenerator;
+import com.archie.codegen.generator.SchemaGenerator;
+import com.archie.codegen.generator.ServiceGenerator;
+import com.archie.codegen.sink.GenerationSink;
+import com.archie.codegen.template.ProjectTemplates;
+import com.archie.codegen.template.ProjectTemplates.Artifact;
+import com.archie.config.ArchieConfig;
+import com.archie.config.DatabaseType;
+import com.archie.config.IdStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The built-in project generators. Their order values leave gaps so that additional
+ * ProjectGenerator beans can place their files in between.
+ */
+@Configuration
+public class CoreProjectGenerators {
+
+    public static final String ENTITY_SOURCES = "entity-sources";
+    public static final String UUID_V7_SOURCE = "uuid-v7-source";
+    public static final String REPOSITORY_SOURCES = "repository-sources";
+    public static final String CONTROLLER_SOURCES = "controller-sources";
+    public static final String SERVICE_SOURCES = "service-sources";
+    public static final String FLOWCHART_SOURCE = "flowchart-source";
+    public static final String SCHEMA = "schema";
+    public static final String APPLICATION_YML = "application-yml";
+    public static final String APPLICATION_PROD_YML = "application-prod-yml";
+    public static final String POM = "pom";
+    public static final String MAIN_APPLICATION = "main-application";
+    public static final String JACKSON_CONFIG = "jackson-config";
+    public static final String CACHE_CONFIG = "cache-config";
+    public static final String DOCKER_COMPOSE = "docker-compose";
+    public static final String README = "readme";
+
+    // Files that only depend on project name, package, database and caching, all of which force a full regeneration
+    private static final SimpleProjectGenerator.Impact NEVER = (path, diff) -> false;
+
+    @Bean
+    public ProjectGenerator entityProjectGenerator(EntityGenerator entityGenerator) {
+        return new SimpleProjectGenerator("entities", 100, Set.of(ENTITY_SOURCES), perEntity(".java"),
+                (context, sink) ->
+                writePerEntity(context, sink, "/entity/", ".java",
+                        (entity, out) -> entityGenerator.writeEntity(entity, context.analysisResult(),
+                                context.databaseType(), out)));
+    }
+
+    @Bean
+    public ProjectGenerator uuidV7ProjectGenerator(ProjectTemplates templates, ArchieConfig config) {
+        return new SimpleProjectGenerator("uuid-v7", 150, Set.of(UUID_V7_SOURCE), NEVER, (context, sink) -> {
+            if (config.getGeneration().getIdStrategy() == IdStrategy.UUID) {
+                sink.write(context.javaRoot() + "/entity/UuidV7.java", out -> out.append(templates.render(
+                        Artifact.UUID_V7, context.databaseType(), context.analysisResult())));
+            }
+        });
+    }
+
+    @Bean
+    public ProjectGenerator repositoryProjectGenerator(RepositoryGenerator repositoryGenerator) {
+        return new SimpleProjectGenerator("repositories", 200, Set.of(REPOSITORY_SOURCES),
+                perEntity("Repository.java"), (context, sink) ->
+                writePerEntity(context, sink, "/repository/", "Repository.java",
+                        (entity, out) -> repositoryGenerator.writeRepository(entity, context.analysisResult(), out)));
+    }
+
+    @Bean
+    public ProjectGenerator controllerProjectGenerator(ControllerGenerator controllerGenerator) {
+        return new SimpleProjectGenerator("controllers", 300, Set.of(CONTROLLER_SOURCES),
+                perEntity("Controller.java"), (context, sink) ->
+                writePerEntity(context, sink, "/controller/", "Controller.java",
+                        (entity, out) -> controllerGenerator.writeController(entity, context.basePackage(), out)));
+    }
+
+    @Bean
+    public ProjectGenerator serviceProjectGenerator(ServiceGenerator serviceGenerator) {
+        return new SimpleProjectGenerator("services", 400, Set.of(SERVICE_SOURCES),
+                (path, diff) -> diff.serviceChanged(fileName(path, ".java")), (context, sink) -> {
+            List<DiagramAnalysisResult.ServiceMetadata> services = context.analysisResult().getServices();
+            if (services != null) {
+                for (DiagramAnalysisResult.ServiceMetadata service : services) {
+                    sink.write(context.javaRoot() + "/service/" + service.getName() + ".java",
+                            out -> out.append(serviceGenerator.generateService(context.basePackage(), service)));
+                }
+            }
+        });
+    }
+
+    @Bean
+    public ProjectGenerator flowchartProjectGenerator(ServiceGenerator serviceGenerator) {
+        return new SimpleProjectGenerator("flowchart", 500, Set.of(FLOWCHART_SOURCE),
+                (path, diff) -> diff.flowchartChanged(), (context, sink) -> {
+            DiagramAnalysisResult.FlowchartLogic logic = context.analysisResult().getFlowchartLogic();
+            if (logic != null) {
+                sink.write(context.javaRoot() + "/service/" + logic.getServiceName() + ".java",
+                        out -> out.append(serviceGenerator.generateFlowchartService(context.analysisResult())));
+            }
+        });
+    }
+
+    @Bean
+    public ProjectGenerator schemaProjectGenerator(SchemaGenerator schemaGenerator) {
+        return new SimpleProjectGenerator("schema", 600, Set.of(SCHEMA), (path, diff) -> diff.schemaChanged(),
+                (context, sink) ->
+                sink.write("src/main/resources/schema.sql",
+                        out -> schemaGenerator.writeSchema(context.analysisResult(), context.databaseType(), out)));
+    }
+
+    @Bean
+    public ProjectGenerator applicationYmlProjectGenerator(ProjectTemplates templates) {
+        return templateGenerator("application-yml", 700, APPLICATION_YML, NEVER, templates,
+                Artifact.APPLICATION_YML, "src/main/resources/application.yml");
+    }
+
+    @Bean
+    public ProjectGenerator applicationProdYmlProjectGenerator(ProjectTemplates templates) {
+        return templateGenerator("application-prod-yml", 750, APPLICATION_PROD_YML, NEVER, templates,
+                Artifact.APPLICATION_PROD_YML, "src/main/resources/application-prod.yml");
+    }
+
+    @Bean
+    public ProjectGenerator pomProjectGenerator(ProjectTemplates templates) {
+        return templateGenerator("pom", 800, POM, NEVER, templates, Artifact.POM_XML, "pom.xml");
+    }
+
+    @Bean
+    public ProjectGenerator mainApplicationProjectGenerator(ProjectTemplates templates) {
+        return new SimpleProjectGenerator("main-application", 900, Set.of(MAIN_APPLICATION), NEVER, (context, sink) ->
+                sink.write(context.javaRoot() + "/Application.java", out -> out.append(templates.render(
+                        Artifact.MAIN_APPLICATION, context.databaseType(), context.analysisResult()))));
+    }
+
+    @Bean
+    public ProjectGenerator jacksonConfigProjectGenerator(ProjectTemplates templates) {
+        return new SimpleProjectGenerator("jackson-config", 950, Set.of(JACKSON_CONFIG), NEVER, (context, sink) -> {
+            if (context.databaseType() != DatabaseType.MONGODB) {
+                sink.write(context.javaRoot() + "/config/JacksonConfig.java", out -> out.append(templates.render(
+                        Artifact.JACKSON_CONFIG, context.databaseType(), context.analysisResult())));
+            }
+        });
+    }
+
+    @Bean
+    public ProjectGenerator cacheConfigProjectGenerator(CacheConfigGenerator cacheConfigGenerator) {
+        // Regions follow the entities and their cache specs, like schema.sql
+        return new SimpleProjectGenerator("cache-config", 960, Set.of(CACHE_CONFIG),
+                (path, diff) -> diff.schemaChanged(), (context, sink) -> {
+            if (cacheConfigGenerator.isEnabled(context.analysisResult())) {
+                sink.write(context.javaRoot() + "/config/CacheConfig.java",
+                        out -> cacheConfigGenerator.writeCacheConfig(context.analysisResult(), out));
+            }
+        });
+    }
+
+    @Bean
+    public ProjectGenerator dockerComposeProjectGenerator(ProjectTemplates templates) {
+        return new SimpleProjectGenerator("docker-compose", 1000, Set.of(DOCKER_COMPOSE), NEVER, (context, sink) -> {
+            if (context.databaseType() != DatabaseType.H2) {
+                sink.write("docker-compose.yml", out -> out.append(templates.render(
+                        Artifact.DOCKER_COMPOSE, context.databaseType(), context.analysisResult())));
+            }
+        });
+    }
+
+    @Bean
+    public ProjectGenerator readmeProjectGenerator(ProjectTemplates templates) {
+        return templateGenerator("readme", 1100, README, (path, diff) -> diff.readmeChanged(), templates,
+                Artifact.README, "README.md");
+    }
+
+    private static ProjectGenerator templateGenerator(String name, int order, String output,
+            SimpleProjectGenerator.Impact impact, ProjectTemplates templates, Artifact artifact, String path) {
+        return new SimpleProjectGenerator(name, order, Set.of(output), impact, (context, sink) ->
+                sink.write(path, out -> out.append(
+                        templates.render(artifact, context.databaseType(), context.analysisResult()))));
+    }
+
+    /**
+     * Files named after their entity are affected when that entity (or one it is associated with) changed
+     */
+    private static SimpleProjectGenerator.Impact perEntity(String suffix) {
+        return (path, diff) -> diff.entityChanged(fileName(path, suffix));
+    }
+
+    /**
+     * Entity or service name in a path like src/main/java/com/example/entity/Order.java
+     */
+    private static String fileName(String path, String suffix) {
+        return path.substring(path.lastIndexOf('/') + 1, path.length() - suffix.length());
+    }
+
+    /**
+     * One file per entity, in entity order. Large models render their sources on the generation pool
+     * first (ordered parallel stream) and then write them in sequence.
+     */
+    private static void writePerEntity(GenerationContext context, GenerationSink sink, String folder,
+            String suffix, EntityWriter writer) throws IOException {
+        List<DiagramAnalysisResult.EntityMetadata> entities = context.entities();
+        if (!context.parallel()) {
+            for (DiagramAnalysisResult.EntityMetadata entity : entities) {
+                sink.write(context.javaRoot() + folder + entity.getName() + suffix,
+                        out -> writer.write(entity, out));
+            }
+            return;
+        }
+
+        List<String> sources = entities.parallelStream()
+                .map(entity -> {
+                    StringBuilder source = new StringBuilder();
+                    try {
+                        writer.write(entity, source);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return source.toString();
+                })
+                .toList();
+        for (int i = 0; i < entities.size(); i++) {
+            String source = sources.get(i);
+            sink.write(context.javaRoot() + folder + entities.get(i).getName() + suffix, out -> out.append(source));
+        }
+    }
+
+    @FunctionalInterface
+    private interface EntityWriter {
+        void write(DiagramAnalysisResult.EntityMetadata entity, Appendable out) throws IOException;
+    }
+}
@@ -0,0 +1,29 @@
+package com.archie.codegen.pipeline;
+
+import com.archie.ai.model.DiagramAnalysisResult;
+import com.archie.config.DatabaseType;
+
+import java.util.List;
+
+/**
+ * Inputs shared by all generators of one generation run
+ *
+ * @param parallel whether per-entity work may be spread over the generation pool
+ */
+public record GenerationContext(DiagramAnalysisResult analysisResult, DatabaseType databaseType, boolean parallel) {
+
+    public String basePackage() {
+        return analysisResult.getBasePackage();
+    }
+
+    /**
+     * Source root of the base package, e.g. src/main/java/com/example
+     */
+    public String javaRoot() {
+        return "src/main/java/" + basePackage().replace('.', '/');
+    }
+
+    public List<DiagramAnalysisResult.EntityMetadata> entities() {
+        return analysisResult.getEntities() != null ? analysisResult.getEntities() : List.of();
+    }
+}
@@ -0,0 +1,202 @@
+package com.archie.codegen.pipeline;
+
+import com.archie.codegen.sink.GenerationSink;
+import com.archie.codegen.sink.MapGenerationSink;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs the registered ProjectGenerators as a DAG built from their declared inputs and outputs.
+ * The graph is validated once at startup: every input needs a producer and cycles are rejected.
+ */
+@Slf4j
+@Component
+public class GeneratorScheduler {
+
+    private final List<ProjectGenerator> generators; // output order (getOrder)
+    private final List<ProjectGenerator> executionOrder; // topological, ties broken by output order
+    private final Map<String, List<ProjectGenerator>> dependencies;
+
+    public GeneratorScheduler(List<ProjectGenerator> generators) {
+        this.generators = generators.stream().sorted(Comparator.comparingInt(ProjectGenerator::getOrder)).toList();
+
+        Map<String, ProjectGenerator> producers = new HashMap<>();
+        for (ProjectGenerator generator : this.generators) {
+            for (String output : generator.getOutputs()) {
+                ProjectGenerator previous = producers.put(output, generator);
+                if (previous != null) {
+                    throw new IllegalStateException("Output '" + output + "' is produced by both "
+                            + previous.getName() + " and " + generator.getName());
+                }
+            }
+        }
+
+        this.dependencies = new HashMap<>();
+        for (ProjectGenerator generator : this.generators) {
+            List<ProjectGenerator> required = new ArrayList<>();
+            for (String input : generator.getInputs()) {
+                ProjectGenerator producer = producers.get(input);
+                if (producer == null) {
+                    throw new IllegalStateException("Generator " + generator.getName() + " needs '" + input
+                            + "' but no generator produces it");
+                }
+                required.add(producer);
+            }
+            dependencies.put(generator.getName(), required);
+        }
+
+        this.executionOrder = topologicalOrder();
+        log.info("Registered {} project generators: {}", executionOrder.size(),
+                executionOrder.stream().map(ProjectGenerator::getName).toList());
+    }
+
+    /**
+     * Run one generator after another, writing straight into the sink (streaming mode)
+     */
+    public Map<String, Long> runSequentially(GenerationContext context, GenerationSink sink) throws IOException {
+        Map<String, Long> timings = new LinkedHashMap<>();
+        for (ProjectGenerator generator : executionOrder) {
+            long start = System.nanoTime();
+            generator.generate(context, sink);
+            timings.put(generator.getName(), (System.nanoTime() - start) / 1_000);
+        }
+        return timings;
+    }
+
+    /**
+     * Run the generators for a changed analysis, rendering only the files the diff affects (see
+     * {@link ProjectGenerator#isAffected}) and files the project does not have yet. Every other file is
+     * written with its content from previousFiles.
+     *
+     * @return paths whose content was rendered
+     */
+    public Set<String> runIncrementally(GenerationContext context, AnalysisDiff diff, Map<String, String> previousFiles,
+            GenerationSink sink) throws IOException {
+        Set<String> rendered = new LinkedHashSet<>();
+        for (ProjectGenerator generator : executionOrder) {
+            generator.generate(context, (path, content) -> {
+                String existing = previousFiles.get(path);
+                if (existing == null || generator.isAffected(path, diff)) {
+                    rendered.add(path);
+                    sink.write(path, content);
+                } else {
+                    sink.write(path, out -> out.append(existing));
+                }
+            });
+        }
+        return rendered;
+    }
+
+    /**
+     * Paths the generators produce for the context, without rendering their content
+     */
+    public Set<String> plannedPaths(GenerationContext context) throws IOException {
+        Set<String> paths = new LinkedHashSet<>();
+        for (ProjectGenerator generator : executionOrder) {
+            generator.generate(context, (path, content) -> paths.add(path));
+        }
+        return paths;
+    }
+
+    /**
+     * Run every generator as soon as its inputs are complete. Each generator writes into its own buffer,
+     * which is copied to the sink in output order once all have finished.
+     *
+     * @return wall time per generator in microseconds, in output order
+     */
+    public Map<String, Long> runConcurrently(GenerationContext context, GenerationSink sink, Executor executor)
+            throws IOException {
+        Map<String, CompletableFuture<Void>> completions = new HashMap<>();
+        Map<String, MapGenerationSink> buffers = new HashMap<>();
+        Map<String, Long> timings = new ConcurrentHashMap<>();
+
+        for (ProjectGenerator generator : executionOrder) {
+            MapGenerationSink buffer = new MapGenerationSink();
+            buffers.put(generator.getName(), buffer);
+            CompletableFuture<?>[] required = dependencies.get(generator.getName()).stream()
+                    .map(producer -> completions.get(producer.getName()))
+                    .toArray(CompletableFuture[]::new);
+
+            completions.put(generator.getName(), CompletableFuture.allOf(required).thenRunAsync(() -> {
+                long start = System.nanoTime();
+                try {
+                    generator.generate(context, buffer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                timings.put(generator.getName(), (System.nanoTime() - start) / 1_000);
+            }, executor));
+        }
+
+        try {
+            CompletableFuture.allOf(completions.values().toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() instanceof UncheckedIOException io ? io.getCause() : e.getCause();
+            throw new RuntimeException("Generator failed: " + cause.getMessage(), cause);
+        }
+
+        Map<String, Long> ordered = new LinkedHashMap<>();
+        for (ProjectGenerator generator : generators) {
+            for (Map.Entry<String, String> file : buffers.get(generator.getName()).getFiles().entrySet()) {
+                sink.write(file.getKey(), out -> out.append(file.getValue()));
+            }
+            ordered.put(generator.getName(), timings.get(generator.getName()));
+        }
+        return ordered;
+    }
+
+    /**
+     * Kahn's algorithm, preferring generators that come first in output order
+     */
+    private List<ProjectGenerator> topologicalOrder() {
+        Map<String, Integer> position = new HashMap<>();
+        Map<String, Integer> pending = new HashMap<>();
+        Map<String, List<ProjectGenerator>> dependents = new HashMap<>();
+        for (int i = 0; i < generators.size(); i++) {
+            ProjectGenerator generator = generators.get(i);
+            position.put(generator.getName(), i);
+            pending.put(generator.getName(), dependencies.get(generator.getName()).size());
+            for (ProjectGenerator producer : dependencies.get(generator.getName())) {
+                dependents.computeIfAbsent(producer.getName(), name -> new ArrayList<>()).add(generator);
+            }
+        }
+
+        PriorityQueue<ProjectGenerator> ready = new PriorityQueue<>(
+                (a, b) -> Integer.compare(position.get(a.getName()), position.get(b.getName())));
+        generators.stream().filter(generator -> pending.get(generator.getName()) == 0).forEach(ready::add);
+
+        List<ProjectGenerator> order = new ArrayList<>();
+        while (!ready.isEmpty()) {
+            ProjectGenerator generator = ready.poll();
+            order.add(generator);
+            for (ProjectGenerator dependent : dependents.getOrDefault(generator.getName(), List.of())) {
+                if (pending.merge(dependent.getName(), -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+
+        if (order.size() != generators.size()) {
+            throw new IllegalStateException("Project generators have a dependency cycle among: "
+                    + generators.stream().filter(generator -> !order.contains(generator))
+                            .map(ProjectGenerator::getName).toList());
+        }
+        return order;
+    }
+}
@@ -0,0 +1,38 @@
+package com.archie.codegen.pipeline;
+
+import com.archie.codegen.sink.GenerationSink;
+import org.springframework.core.Ordered;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * One step of project generation, contributed as a Spring bean.
+ * A generator declares the outputs it produces and the outputs of other generators it needs;
+ * the scheduler runs generators whose inputs are complete concurrently.
+ * getOrder() fixes where the generator's files appear in the project.
+ */
+public interface ProjectGenerator extends Ordered {
+
+    String getName();
+
+    /**
+     * Outputs of other generators that must be complete before this one runs
+     */
+    default Set<String> getInputs() {
+        return Set.of();
+    }
+
+    Set<String> getOutputs();
+
+    void generate(GenerationContext context, GenerationSink sink) throws IOException;
+
+    /**
+     * Whether regenerating a project after the diff must rewrite path, one of this generator's files.
+     * Unaffected files keep the project's current content, including user edits. The default rewrites
+     * every file, which is always correct; generators that know what their files depend on narrow it down.
+     */
+    default boolean isAffected(String path, AnalysisDiff diff) {
+        return true;
+    }
+}
@@ -0,0 +1,86 @@
+package com.archie.codegen.pipeline;
+
+import com.archie.codegen.sink.GenerationSink;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * ProjectGenerator backed by a lambda, for generators that only need the analysis result
+ */
+public class SimpleProjectGenerator implements ProjectGenerator {
+
+    private final String name;
+    private final int order;
+    private final Set<String> inputs;
+    private final Set<String> outputs;
+    private final Impact impact;
+    private final Body body;
+
+    public SimpleProjectGenerator(String name, int order, Set<String> outputs, Body body) {
+        this(name, order, Set.of(), outputs, Impact.ALWAYS, body);
+    }
+
+    public SimpleProjectGenerator(String name, int order, Set<String> outputs, Impact impact, Body body) {
+        this(name, order, Set.of(), outputs, impact, body);
+    }
+
+    public SimpleProjectGenerator(String name, int order, Set<String> inputs, Set<String> outputs, Body body) {
+        this(name, order, inputs, outputs, Impact.ALWAYS, body);
+    }
+
+    public SimpleProjectGenerator(String name, int order, Set<String> inputs, Set<String> outputs, Impact impact,
+            Body body) {
+        this.name = name;
+        this.order = order;
+        this.inputs = inputs;
+        this.outputs = outputs;
+        this.impact = impact;
+        this.body = body;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getOrder() {
+        return order;
+    }
+
+    @Override
+    public Set<String> getInputs() {
+        return inputs;
+    }
+
+    @Override
+    public Set<String> getOutputs() {
+        return outputs;
+    }
+
+    @Override
+    public void generate(GenerationContext context, GenerationSink sink) throws IOException {
+        body.generate(context, sink);
+    }
+
+    @Override
+    public boolean isAffected(String path, AnalysisDiff diff) {
+        return impact.isAffected(path, diff);
+    }
+
+    /**
+     * See {@link ProjectGenerator#isAffected}
+     */
+    @FunctionalInterface
+    public interface Impact {
+        Impact ALWAYS = (path, diff) -> true;
+
+        boolean isAffected(String path, AnalysisDiff diff);
+    }
+
+    @FunctionalInterface
+    public interface Body {
+        void generate(GenerationContext context, GenerationSink sink) throws IOException;
+    }
+}
@@ -0,0 +1,28 @@
+package com.archie.codegen.sink;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes generated files into a directory tree on disk
+ */
+public class DirectoryGenerationSink implements GenerationSink {
+
+    private final Path root;
+
+    public DirectoryGenerationSink(Path root) {
+        this.root = root;
+    }
+
+    @Override
+    public void write(String path, ContentWriter content) throws IOException {
+        Path file = root.resolve(GenerationPaths.relative(path));
+        Files.createDirectories(file.getParent());
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            content.writeTo(writer);
+        }
+    }
+}
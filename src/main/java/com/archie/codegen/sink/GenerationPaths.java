@@ -0,0 +1,29 @@
+package com.archie.codegen.sink;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Validation of the project-relative paths handed to a {@link GenerationSink}.
+ * Paths may come from clients (edited files), so every sink rejects those that would leave the project.
+ */
+final class GenerationPaths {
+
+    private GenerationPaths() {
+    }
+
+    /**
+     * The path normalized to forward slashes, rejecting absolute paths and any that climb out via ".."
+     */
+    static String relative(String path) throws IOException {
+        if (path == null || path.isBlank()) {
+            throw new IOException("File path is empty");
+        }
+        Path normalized = Path.of(path.replace('\\', '/')).normalize();
+        if (normalized.isAbsolute() || normalized.getRoot() != null || normalized.startsWith("..")
+                || normalized.toString().isEmpty()) {
+            throw new IOException("File path escapes the project directory: " + path);
+        }
+        return normalized.toString().replace('\\', '/');
+    }
+}
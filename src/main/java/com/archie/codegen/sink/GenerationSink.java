@@ -0,0 +1,21 @@
+package com.archie.codegen.sink;
+
+import java.io.IOException;
+
+/**
+ * Destination for generated project files.
+ * Each file's content is produced directly into the sink, so an implementation
+ * that streams (ZIP, file tree) only ever holds one entry's buffer in memory.
+ */
+public interface GenerationSink {
+
+    /**
+     * Write one file at the given project-relative path
+     */
+    void write(String path, ContentWriter content) throws IOException;
+
+    @FunctionalInterface
+    interface ContentWriter {
+        void writeTo(Appendable out) throws IOException;
+    }
+}
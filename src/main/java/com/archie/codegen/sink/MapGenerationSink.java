@@ -0,0 +1,24 @@
+package com.archie.codegen.sink;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Collects generated files into an ordered path -> content map
+ */
+public class MapGenerationSink implements GenerationSink {
+
+    private final Map<String, String> files = new LinkedHashMap<>();
+
+    @Override
+    public void write(String path, ContentWriter content) throws IOException {
+        StringBuilder buffer = new StringBuilder();
+        content.writeTo(buffer);
+        files.put(path, buffer.toString());
+    }
+
+    public Map<String, String> getFiles() {
+        return files;
+    }
+}
@@ -0,0 +1,34 @@
+package com.archie.codegen.sink;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes each generated file as an entry of a ZIP stream, encoding characters on the fly.
+ * The caller owns the ZipOutputStream and closes it once all files are written.
+ */
+public class ZipGenerationSink implements GenerationSink {
+
+    private final ZipOutputStream zip;
+    private final String rootFolder;
+    private final Writer writer;
+
+    public ZipGenerationSink(ZipOutputStream zip, String rootFolder) {
+        this.zip = zip;
+        this.rootFolder = rootFolder;
+        this.writer = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void write(String path, ContentWriter content) throws IOException {
+        zip.putNextEntry(new ZipEntry(rootFolder + GenerationPaths.relative(path)));
+        content.writeTo(writer);
+        writer.flush(); // push the buffered characters into this entry before it is closed
+        zip.closeEntry();
+    }
+}
@@ -0,0 +1,78 @@
+package com.archie.codegen.template;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Text template parsed once into alternating literal and variable segments.
+ * Placeholders are written {{name}}; constants are folded into the literals at compile time and
+ * variables are resolved by position at render time, without any format parsing.
+ */
+public final class CompiledTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    private final String[] literals; // literals[i] precedes variable i, the last one trails
+    private final int[] variables; // index into the variable values passed to renderTo
+    private final int literalLength;
+
+    private CompiledTemplate(String[] literals, int[] variables) {
+        this.literals = literals;
+        this.variables = variables;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Compile a template. Constants are substituted first (their values may hold variable placeholders),
+     * every remaining placeholder must name one of the variables.
+     */
+    public static CompiledTemplate compile(String source, List<String> variableNames, Map<String, String> constants) {
+        String expanded = source;
+        for (Map.Entry<String, String> constant : constants.entrySet()) {
+            expanded = expanded.replace(OPEN + constant.getKey() + CLOSE, constant.getValue());
+        }
+
+        List<String> literals = new ArrayList<>();
+        List<Integer> variables = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int open = expanded.indexOf(OPEN, position);
+            if (open < 0) {
+                break;
+            }
+            int close = expanded.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                throw new IllegalArgumentException("Unterminated placeholder at offset " + open);
+            }
+            String name = expanded.substring(open + OPEN.length(), close).trim();
+            int index = variableNames.indexOf(name);
+            if (index < 0) {
+                throw new IllegalArgumentException("Unknown template placeholder: " + name);
+            }
+            literals.add(expanded.substring(position, open));
+            variables.add(index);
+            position = close + CLOSE.length();
+        }
+        literals.add(expanded.substring(position));
+
+        return new CompiledTemplate(literals.toArray(String[]::new),
+                variables.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Append the rendered template to the buffer
+     */
+    public void renderTo(StringBuilder out, String... values) {
+        out.ensureCapacity(out.length() + literalLength + 32 * variables.length);
+        for (int i = 0; i < variables.length; i++) {
+            out.append(literals[i]).append(values[variables[i]]);
+        }
+        out.append(literals[variables.length]);
+    }
+}
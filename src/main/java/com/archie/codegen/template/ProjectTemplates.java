@@ -0,0 +1,853 @@
+package com.archie.codegen.template;
+
+import com.archie.ai.model.DiagramAnalysisResult;
+import com.archie.codegen.generator.CacheRegions;
+import com.archie.config.ArchieConfig;
+import com.archie.config.CacheMode;
+import com.archie.config.DatabaseType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Static project artifacts (application.yml, application-prod.yml, pom.xml, docker-compose.yml, Application.java,
+ * JacksonConfig.java, README.md).
+ * The templates are compiled once per DatabaseType, with and without Spring Cache, at startup and rendered into
+ * a reused per-thread buffer; artifacts that depend only on project name, base package, database and caching
+ * are cached fully rendered.
+ */
+@Slf4j
+@Component
+public class ProjectTemplates {
+
+    public enum Artifact {
+        APPLICATION_YML,
+        POM_XML,
+        DOCKER_COMPOSE,
+        APPLICATION_PROD_YML,
+        MAIN_APPLICATION,
+        JACKSON_CONFIG,
+        UUID_V7,
+        README
+    }
+
+    private static final List<String> VARIABLES = List.of(
+            "projectName", "artifactId", "basePackage", "diagramType", "entityCount", "generatedAt");
+
+    // Buffers grown beyond this are dropped after use rather than kept per thread
+    private static final int MAX_BUFFER_RETAINED = 64 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(4096));
+
+    private static final String MAIN_APPLICATION = """
+            package {{basePackage}};
+
+            import org.springframework.boot.SpringApplication;
+            import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+            @SpringBootApplication
+            public class Application {
+                public static void main(String[] args) {
+                    SpringApplication.run(Application.class, args);
+                }
+            }
+            """;
+
+    private static final String JACKSON_CONFIG = """
+            package {{basePackage}}.config;
+
+            import com.fasterxml.jackson.datatype.hibernate6.Hibernate6Module;
+            import org.springframework.context.annotation.Bean;
+            import org.springframework.context.annotation.Configuration;
+
+            /**
+             * Writes lazy associations that were not fetched as their id instead of loading them
+             */
+            @Configuration
+            public class JacksonConfig {
+
+                @Bean
+                public Hibernate6Module hibernate6Module() {
+                    Hibernate6Module module = new Hibernate6Module();
+                    module.enable(Hibernate6Module.Feature.SERIALIZE_IDENTIFIER_FOR_LAZY_NOT_LOADED_OBJECTS);
+                    return module;
+                }
+            }
+            """;
+
+    private static final String UUID_V7 = """
+            package {{basePackage}}.entity;
+
+            import java.security.SecureRandom;
+            import java.util.UUID;
+
+            /**
+             * Time-ordered UUIDs (RFC 9562 version 7): 48 bits of Unix time in milliseconds, then random bits.
+             * New keys land at the end of the primary key index instead of at random pages.
+             */
+            public final class UuidV7 {
+
+                private static final SecureRandom RANDOM = new SecureRandom();
+
+                private UuidV7() {
+                }
+
+                public static UUID randomUuid() {
+                    long millis = System.currentTimeMillis();
+                    long mostSignificant = (millis << 16) | 0x7000L | (RANDOM.nextInt() & 0x0FFFL);
+                    long leastSignificant = (RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+                    return new UUID(mostSignificant, leastSignificant);
+                }
+            }
+            """;
+
+    private static final String APPLICATION_YML_H2 = """
+            spring:
+              application:
+                name: {{artifactId}}
+              profiles:
+                active: '@spring.profiles.active@' # set by Maven, mvn -Pprod selects application-prod.yml
+            {{cacheSettings}}
+              datasource:
+                url: jdbc:h2:mem:testdb
+                driver-class-name: org.h2.Driver
+                username: sa
+                password:
+
+              jpa:
+                hibernate:
+                  ddl-auto: update
+                show-sql: true
+                properties:
+                  hibernate:
+                    format_sql: true
+                    jdbc:
+                      batch_size: {{jdbcBatchSize}}
+                    order_inserts: true
+                    order_updates: true
+
+              h2:
+                console:
+                  enabled: true
+                  path: /h2-console
+
+            server:
+              port: 8080
+
+            logging:
+              level:
+                root: INFO
+                {{basePackage}}: DEBUG
+            """;
+
+    private static final String APPLICATION_YML_POSTGRESQL = """
+            spring:
+              application:
+                name: {{artifactId}}
+              profiles:
+                active: '@spring.profiles.active@' # set by Maven, mvn -Pprod selects application-prod.yml
+            {{cacheSettings}}
+              datasource:
+                url: jdbc:postgresql://localhost:5432/{{artifactId}}
+                driver-class-name: org.postgresql.Driver
+                username: postgres
+                password: postgres
+
+              jpa:
+                hibernate:
+                  ddl-auto: update
+                show-sql: true
+                properties:
+                  hibernate:
+                    dialect: org.hibernate.dialect.PostgreSQLDialect
+                    format_sql: true
+                    jdbc:
+                      batch_size: {{jdbcBatchSize}}
+                    order_inserts: true
+                    order_updates: true
+
+            server:
+              port: 8080
+
+            logging:
+              level:
+                root: INFO
+                {{basePackage}}: DEBUG
+            """;
+
+    private static final String APPLICATION_YML_MYSQL = """
+            spring:
+              application:
+                name: {{artifactId}}
+              profiles:
+                active: '@spring.profiles.active@' # set by Maven, mvn -Pprod selects application-prod.yml
+            {{cacheSettings}}
+              datasource:
+                url: jdbc:mysql://localhost:3306/{{artifactId}}?useSSL=false&serverTimezone=UTC&useCursorFetch=true&rewriteBatchedStatements=true
+                driver-class-name: com.mysql.cj.jdbc.Driver
+                username: root
+                password: root
+
+              jpa:
+                hibernate:
+                  ddl-auto: update
+                show-sql: true
+                properties:
+                  hibernate:
+                    dialect: org.hibernate.dialect.MySQLDialect
+                    format_sql: true
+                    jdbc:
+                      batch_size: {{jdbcBatchSize}}
+                    order_inserts: true
+                    order_updates: true
+
+            server:
+              port: 8080
+
+            logging:
+              level:
+                root: INFO
+                {{basePackage}}: DEBUG
+            """;
+
+    // Inserted under spring: of application.yml when caching is enabled; keeps the blank line that follows
+    private static final String APPLICATION_YML_CACHE = """
+              cache:
+                type: caffeine
+                caffeine:
+                  spec: maximumSize=%d,expireAfterWrite=%ds,recordStats
+            """;
+
+    // application-prod.yml: datasource part per database, then the shared JPA and logging parts
+
+    private static final String PROD_DATASOURCE_H2 = """
+            spring:
+              application:
+                name: {{artifactId}}
+
+              datasource:
+                url: ${DATABASE_URL:jdbc:h2:mem:testdb}
+                username: ${DATABASE_USERNAME:sa}
+                password: ${DATABASE_PASSWORD:}
+                hikari:
+                  pool-name: {{artifactId}}-pool
+                  maximum-pool-size: ${DATABASE_POOL_SIZE:10}
+                  minimum-idle: ${DATABASE_POOL_SIZE:10}
+                  connection-timeout: 5000
+
+              h2:
+                console:
+                  enabled: false
+
+            """;
+
+    private static final String PROD_DATASOURCE_POSTGRESQL = """
+            spring:
+              application:
+                name: {{artifactId}}
+
+              datasource:
+                url: ${DATABASE_URL:jdbc:postgresql://localhost:5432/{{artifactId}}}
+                username: ${DATABASE_USERNAME:postgres}
+                password: ${DATABASE_PASSWORD:postgres}
+                hikari:
+                  pool-name: {{artifactId}}-pool
+                  # A fixed pool; size it to the database's cores rather than to the request threads
+                  maximum-pool-size: ${DATABASE_POOL_SIZE:10}
+                  minimum-idle: ${DATABASE_POOL_SIZE:10}
+                  connection-timeout: 5000
+                  max-lifetime: 1800000
+                  data-source-properties:
+                    prepareThreshold: 3
+                    preparedStatementCacheQueries: 256
+                    preparedStatementCacheSizeMiB: 5
+                    reWriteBatchedInserts: true
+
+            """;
+
+    private static final String PROD_DATASOURCE_MYSQL = """
+            spring:
+              application:
+                name: {{artifactId}}
+
+              datasource:
+                url: ${DATABASE_URL:jdbc:mysql://localhost:3306/{{artifactId}}?serverTimezone=UTC}
+                username: ${DATABASE_USERNAME:root}
+                password: ${DATABASE_PASSWORD:root}
+                hikari:
+                  pool-name: {{artifactId}}-pool
+                  # A fixed pool; size it to the database's cores rather than to the request threads
+                  maximum-pool-size: ${DATABASE_POOL_SIZE:10}
+                  minimum-idle: ${DATABASE_POOL_SIZE:10}
+                  connection-timeout: 5000
+                  max-lifetime: 1800000
+                  data-source-properties:
+                    cachePrepStmts: true
+                    prepStmtCacheSize: 250
+                    prepStmtCacheSqlLimit: 2048
+                    useServerPrepStmts: true
+                    useLocalSessionState: true
+                    rewriteBatchedStatements: true
+                    cacheResultSetMetadata: true
+                    cacheServerConfiguration: true
+                    elideSetAutoCommits: true
+                    maintainTimeStats: false
+                    useCursorFetch: true
+
+            """;
+
+    private static final String PROD_JPA = """
+              jpa:
+                open-in-view: false
+                show-sql: false
+                hibernate:
+                  ddl-auto: {{prodDdlAuto}}
+                properties:
+                  hibernate:
+                    format_sql: false
+                    jdbc:
+                      batch_size: {{jdbcBatchSize}}
+                    order_inserts: true
+                    order_updates: true
+                    batch_versioned_data: true
+                    query:
+                      in_clause_parameter_padding: true
+                      fail_on_pagination_over_collection_fetch: true
+
+              # schema.sql drops the tables, never run it against production
+              sql:
+                init:
+                  mode: never
+
+            """;
+
+    private static final String PROD_LOGGING = """
+            server:
+              port: 8080
+              shutdown: graceful
+
+            logging:
+              level:
+                root: INFO
+                org.hibernate.SQL: WARN
+                {{basePackage}}: INFO
+            """;
+
+    private static final String APPLICATION_PROD_YML_SQLITE = """
+            spring:
+              application:
+                name: {{artifactId}}
+
+              datasource:
+                url: ${DATABASE_URL:jdbc:sqlite:{{artifactId}}.db}
+                hikari:
+                  pool-name: {{artifactId}}-pool
+                  maximum-pool-size: 1 # SQLite allows a single writer
+
+              jpa:
+                open-in-view: false
+                show-sql: false
+                hibernate:
+                  ddl-auto: update # a new database file starts empty, Hibernate creates the tables
+                properties:
+                  hibernate:
+                    dialect: org.hibernate.community.dialect.SQLiteDialect
+                    format_sql: false
+                    jdbc:
+                      batch_size: {{jdbcBatchSize}}
+                    order_inserts: true
+                    order_updates: true
+
+              # schema.sql drops the tables, never run it against production
+              sql:
+                init:
+                  mode: never
+
+            """ + PROD_LOGGING;
+
+    private static final String APPLICATION_PROD_YML_MONGODB = """
+            spring:
+              application:
+                name: {{artifactId}}
+
+              data:
+                mongodb:
+                  uri: ${MONGODB_URI:mongodb://localhost:27017/{{artifactId}}}
+
+            """ + PROD_LOGGING;
+
+    private static final String APPLICATION_YML_MONGODB = """
+            spring:
+              application:
+                name: {{artifactId}}
+              profiles:
+                active: '@spring.profiles.active@' # set by Maven, mvn -Pprod selects application-prod.yml
+            {{cacheSettings}}
+              data:
+                mongodb:
+                  uri: mongodb://localhost:27017/{{artifactId}}
+
+            server:
+              port: 8080
+
+            logging:
+              level:
+                root: INFO
+                {{basePackage}}: DEBUG
+            """;
+
+    private static final String APPLICATION_YML_SQLITE = """
+            spring:
+              application:
+                name: {{artifactId}}
+              profiles:
+                active: '@spring.profiles.active@' # set by Maven, mvn -Pprod selects application-prod.yml
+            {{cacheSettings}}
+              datasource:
+                url: jdbc:sqlite:{{artifactId}}.db
+                driver-class-name: org.sqlite.JDBC
+
+              jpa:
+                hibernate:
+                  ddl-auto: update
+                show-sql: true
+                properties:
+                  hibernate:
+                    dialect: org.hibernate.community.dialect.SQLiteDialect
+                    format_sql: true
+                    jdbc:
+                      batch_size: {{jdbcBatchSize}}
+                    order_inserts: true
+                    order_updates: true
+
+            server:
+              port: 8080
+
+            logging:
+              level:
+                root: INFO
+                {{basePackage}}: DEBUG
+            """;
+
+    private static final String DOCKER_COMPOSE_POSTGRESQL = """
+            version: '3.8'
+            services:
+              postgres:
+                image: postgres:15
+                container_name: {{artifactId}}-postgres
+                environment:
+                  POSTGRES_DB: {{artifactId}}
+                  POSTGRES_USER: postgres
+                  POSTGRES_PASSWORD: postgres
+                ports:
+                  - "5432:5432"
+                volumes:
+                  - postgres_data:/var/lib/postgresql/data
+
+            volumes:
+              postgres_data:
+            """;
+
+    private static final String DOCKER_COMPOSE_MYSQL = """
+            version: '3.8'
+            services:
+              mysql:
+                image: mysql:8
+                container_name: {{artifactId}}-mysql
+                environment:
+                  MYSQL_ROOT_PASSWORD: root
+                  MYSQL_DATABASE: {{artifactId}}
+                ports:
+                  - "3306:3306"
+                volumes:
+                  - mysql_data:/var/lib/mysql
+
+            volumes:
+              mysql_data:
+            """;
+
+    private static final String DOCKER_COMPOSE_MONGODB = """
+            version: '3.8'
+            services:
+              mongodb:
+                image: mongo:6
+                container_name: {{artifactId}}-mongodb
+                ports:
+                  - "27017:27017"
+                volumes:
+                  - mongo_data:/data/db
+
+            volumes:
+              mongo_data:
+            """;
+
+    private static final String POM_XML = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <project xmlns="http://maven.apache.org/POM/4.0.0"
+                     xmlns:xsi="http://www.w3.org/2001/XMLSchema-instance"
+                     xsi:schemaLocation="http://maven.apache.org/POM/4.0.0
+                     https://maven.apache.org/xsd/maven-4.0.0.xsd">
+                <modelVersion>4.0.0</modelVersion>
+
+                <parent>
+                    <groupId>org.springframework.boot</groupId>
+                    <artifactId>spring-boot-starter-parent</artifactId>
+                    <version>3.3.6</version>
+                </parent>
+
+                <groupId>{{basePackage}}</groupId>
+                <artifactId>{{artifactId}}</artifactId>
+                <version>1.0.0-SNAPSHOT</version>
+                <name>{{projectName}}</name>
+                <description>Generated by Archie - Blueprint to Boot</description>
+
+                <properties>
+                    <java.version>21</java.version>
+                    <spring.profiles.active>dev</spring.profiles.active>
+                </properties>
+
+                <dependencies>
+                    <dependency>
+                        <groupId>org.springframework.boot</groupId>
+                        <artifactId>spring-boot-starter-web</artifactId>
+                    </dependency>
+            {{jpaStarter}}
+            {{dbDependency}}
+                    <dependency>
+                        <groupId>org.projectlombok</groupId>
+                        <artifactId>lombok</artifactId>
+                        <optional>true</optional>
+                    </dependency>
+                    <dependency>
+                        <groupId>org.springframework.boot</groupId>
+                        <artifactId>spring-boot-starter-validation</artifactId>
+                    </dependency>
+                    <dependency>
+                        <groupId>org.springframework.boot</groupId>
+                        <artifactId>spring-boot-starter-test</artifactId>
+                        <scope>test</scope>
+                    </dependency>
+                </dependencies>
+
+                <build>
+                    <plugins>
+                        <plugin>
+                            <groupId>org.springframework.boot</groupId>
+                            <artifactId>spring-boot-maven-plugin</artifactId>
+                        </plugin>
+                    </plugins>
+                </build>
+
+                <profiles>
+                    <profile>
+                        <id>prod</id>
+                        <properties>
+                            <spring.profiles.active>prod</spring.profiles.active>
+                        </properties>
+                    </profile>
+                </profiles>
+            </project>
+            """;
+
+    private static final String POM_DEPENDENCY_H2 = """
+            <dependency>
+                <groupId>com.h2database</groupId>
+                <artifactId>h2</artifactId>
+                <scope>runtime</scope>
+            </dependency>""";
+
+    private static final String POM_DEPENDENCY_POSTGRESQL = """
+            <dependency>
+                <groupId>org.postgresql</groupId>
+                <artifactId>postgresql</artifactId>
+                <scope>runtime</scope>
+            </dependency>""";
+
+    private static final String POM_DEPENDENCY_MYSQL = """
+            <dependency>
+                <groupId>com.mysql</groupId>
+                <artifactId>mysql-connector-j</artifactId>
+                <scope>runtime</scope>
+            </dependency>""";
+
+    private static final String POM_DEPENDENCY_MONGODB = """
+            <dependency>
+                <groupId>org.springframework.boot</groupId>
+                <artifactId>spring-boot-starter-data-mongodb</artifactId>
+            </dependency>""";
+
+    private static final String POM_DEPENDENCY_SQLITE = """
+            <dependency>
+                <groupId>org.xerial</groupId>
+                <artifactId>sqlite-jdbc</artifactId>
+                <version>3.44.1.0</version>
+            </dependency>
+            <dependency>
+                <groupId>org.hibernate.orm</groupId>
+                <artifactId>hibernate-community-dialects</artifactId>
+            </dependency>""";
+
+    private static final String POM_CACHE_DEPENDENCIES = """
+            <dependency>
+                <groupId>org.springframework.boot</groupId>
+                <artifactId>spring-boot-starter-cache</artifactId>
+            </dependency>
+            <dependency>
+                <groupId>com.github.ben-manes.caffeine</groupId>
+                <artifactId>caffeine</artifactId>
+            </dependency>""";
+
+    private static final String POM_JPA_STARTER = """
+            <dependency>
+                <groupId>org.springframework.boot</groupId>
+                <artifactId>spring-boot-starter-data-jpa</artifactId>
+            </dependency>
+            <dependency>
+                <groupId>com.fasterxml.jackson.datatype</groupId>
+                <artifactId>jackson-datatype-hibernate6</artifactId>
+            </dependency>""";
+
+    private static final String README = """
+            # {{projectName}}
+
+            > Generated by **Archie - Blueprint to Boot** 🤖
+
+            ## Project Overview
+
+            This Spring Boot project was auto-generated from a diagram.
+
+            - **Diagram Type:** {{diagramType}}
+            - **Database:** {{database}}
+            - **Entities:** {{entityCount}}
+            - **Generated:** {{generatedAt}}
+
+            ## Quick Start
+
+            ```bash
+            # Build the project
+            mvn clean install
+
+            # Run the application
+            mvn spring-boot:run
+
+            # Build for production (application-prod.yml: pooled connections, batching, no SQL logging)
+            mvn -Pprod clean package
+            ```
+
+            {{dbSetup}}
+
+            ## API Endpoints
+
+            - **Application:** http://localhost:8080
+            - **API Base:** `/api/{entity-name}s`
+
+            ## Features
+
+            ✅ JPA Entities with relationships
+            ✅ Spring Data Repositories
+            ✅ REST Controllers with CRUD operations
+            ✅ SQL Schema initialization
+            ✅ {{database}} Database
+
+            ## Technology Stack
+
+            - Java 21
+            - Spring Boot 3.3
+            - Spring Data JPA
+            - {{database}}
+            - Lombok
+
+            ---
+
+            Generated with ❤️ by Archie
+            """;
+
+    private static final String README_SETUP_POSTGRESQL = """
+            ## Database Setup
+            ```bash
+            # Start PostgreSQL with Docker
+            docker-compose up -d
+            ```
+
+            ### Production schema
+            The prod profile never runs `schema.sql` and Hibernate only validates the tables,
+            so create them once before the first start. `schema.sql` drops existing tables;
+            run it against an empty database only, and manage later changes with a migration tool such as Flyway.
+            ```bash
+            psql -h localhost -U postgres -d {{artifactId}} -f src/main/resources/schema.sql
+            ```""";
+
+    private static final String README_SETUP_MYSQL = """
+            ## Database Setup
+            ```bash
+            # Start MySQL with Docker
+            docker-compose up -d
+            ```
+
+            ### Production schema
+            The prod profile never runs `schema.sql` and Hibernate only validates the tables,
+            so create them once before the first start. `schema.sql` drops existing tables;
+            run it against an empty database only, and manage later changes with a migration tool such as Flyway.
+            ```bash
+            mysql -h 127.0.0.1 -u root -p {{artifactId}} < src/main/resources/schema.sql
+            ```""";
+
+    private static final String README_SETUP_MONGODB = """
+            ## Database Setup
+            ```bash
+            # Start MongoDB with Docker
+            docker-compose up -d
+            ```""";
+
+    private final ArchieConfig.Generation settings;
+    private final Map<DatabaseType, Map<Artifact, CompiledTemplate>> templates = new EnumMap<>(DatabaseType.class);
+    // For projects with cached entities; empty when caching is off
+    private final Map<DatabaseType, Map<Artifact, CompiledTemplate>> cachedTemplates = new EnumMap<>(
+            DatabaseType.class);
+    private final Map<RenderedKey, String> rendered;
+
+    public ProjectTemplates(ArchieConfig config) {
+        this.settings = config.getGeneration();
+        for (DatabaseType dbType : DatabaseType.values()) {
+            templates.put(dbType, compile(dbType, settings, false));
+            if (settings.getCaching() != CacheMode.NONE) {
+                cachedTemplates.put(dbType, compile(dbType, settings, true));
+            }
+        }
+
+        int maxEntries = Math.max(1, config.getGeneration().getArtifactCacheEntries());
+        this.rendered = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<RenderedKey, String> eldest) {
+                return size() > maxEntries;
+            }
+        });
+        log.info("Compiled project templates for {} database types", templates.size());
+    }
+
+    /**
+     * Render an artifact for the project; empty when the database has no such artifact
+     */
+    public String render(Artifact artifact, DatabaseType dbType, DiagramAnalysisResult analysisResult) {
+        boolean caching = CacheRegions.isUsed(settings, analysisResult);
+        CompiledTemplate template = (caching ? cachedTemplates : templates).get(dbType).get(artifact);
+        if (template == null) {
+            return "";
+        }
+        if (artifact == Artifact.README) {
+            // Also carries entity count, diagram type and a timestamp, so it is rendered but never cached
+            return renderNow(template, analysisResult);
+        }
+
+        RenderedKey key = new RenderedKey(artifact, dbType, analysisResult.getProjectName(),
+                analysisResult.getBasePackage(), caching);
+        String cached = rendered.get(key);
+        if (cached == null) {
+            cached = renderNow(template, analysisResult);
+            rendered.put(key, cached);
+        }
+        return cached;
+    }
+
+    private String renderNow(CompiledTemplate template, DiagramAnalysisResult analysisResult) {
+        String projectName = analysisResult.getProjectName();
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        template.renderTo(buffer,
+                projectName,
+                projectName.toLowerCase().replace(" ", "-"),
+                analysisResult.getBasePackage(),
+                analysisResult.getDiagramType() != null ? analysisResult.getDiagramType() : "ER_DIAGRAM",
+                String.valueOf(analysisResult.getEntities() != null ? analysisResult.getEntities().size() : 0),
+                LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME));
+        String result = buffer.toString();
+        if (buffer.capacity() > MAX_BUFFER_RETAINED) {
+            BUFFER.remove();
+        }
+        return result;
+    }
+
+    private static Map<Artifact, CompiledTemplate> compile(DatabaseType dbType, ArchieConfig.Generation settings,
+            boolean caching) {
+        String applicationYml = switch (dbType) {
+            case H2 -> APPLICATION_YML_H2;
+            case POSTGRESQL -> APPLICATION_YML_POSTGRESQL;
+            case MYSQL -> APPLICATION_YML_MYSQL;
+            case MONGODB -> APPLICATION_YML_MONGODB;
+            case SQLITE -> APPLICATION_YML_SQLITE;
+        };
+        String applicationProdYml = switch (dbType) {
+            case H2 -> PROD_DATASOURCE_H2 + PROD_JPA + PROD_LOGGING;
+            case POSTGRESQL -> PROD_DATASOURCE_POSTGRESQL + PROD_JPA + PROD_LOGGING;
+            case MYSQL -> PROD_DATASOURCE_MYSQL + PROD_JPA + PROD_LOGGING;
+            case MONGODB -> APPLICATION_PROD_YML_MONGODB;
+            case SQLITE -> APPLICATION_PROD_YML_SQLITE;
+        };
+        String dockerCompose = switch (dbType) {
+            case POSTGRESQL -> DOCKER_COMPOSE_POSTGRESQL;
+            case MYSQL -> DOCKER_COMPOSE_MYSQL;
+            case MONGODB -> DOCKER_COMPOSE_MONGODB;
+            default -> null;
+        };
+        String dbDependency = switch (dbType) {
+            case H2 -> POM_DEPENDENCY_H2;
+            case POSTGRESQL -> POM_DEPENDENCY_POSTGRESQL;
+            case MYSQL -> POM_DEPENDENCY_MYSQL;
+            case MONGODB -> POM_DEPENDENCY_MONGODB;
+            case SQLITE -> POM_DEPENDENCY_SQLITE;
+        };
+        String dbSetup = switch (dbType) {
+            case H2 -> "H2 Console: http://localhost:8080/h2-console";
+            case POSTGRESQL -> README_SETUP_POSTGRESQL;
+            case MYSQL -> README_SETUP_MYSQL;
+            case MONGODB -> README_SETUP_MONGODB;
+            case SQLITE -> "SQLite database file: ./{{artifactId}}.db";
+        };
+        // Only the server databases keep their schema between starts; H2 defaults to an in-memory database
+        String prodDdlAuto = switch (dbType) {
+            case POSTGRESQL, MYSQL -> "validate # the tables must exist, see README.md";
+            default -> "update # the in-memory database starts empty, Hibernate creates the tables";
+        };
+
+        // Default for caches without a region of their own, see the generated CacheConfig
+        String cacheSettings = caching
+                ? APPLICATION_YML_CACHE.formatted(settings.getCacheMaxSize(), settings.getCacheTtl().toSeconds())
+                : "";
+
+        Map<String, String> constants = Map.of(
+                "jpaStarter", dbType == DatabaseType.MONGODB ? "" : POM_JPA_STARTER,
+                "dbDependency", caching ? dbDependency + "\n" + POM_CACHE_DEPENDENCIES : dbDependency,
+                "cacheSettings", cacheSettings,
+                "dbSetup", dbSetup,
+                "database", dbType.getDisplayName(),
+                "jdbcBatchSize", String.valueOf(settings.getIdAllocationSize()),
+                "prodDdlAuto", prodDdlAuto);
+
+        Map<Artifact, CompiledTemplate> compiled = new EnumMap<>(Artifact.class);
+        compiled.put(Artifact.APPLICATION_YML, CompiledTemplate.compile(applicationYml, VARIABLES, constants));
+        compiled.put(Artifact.APPLICATION_PROD_YML,
+                CompiledTemplate.compile(applicationProdYml, VARIABLES, constants));
+        compiled.put(Artifact.POM_XML, CompiledTemplate.compile(POM_XML, VARIABLES, constants));
+        compiled.put(Artifact.MAIN_APPLICATION, CompiledTemplate.compile(MAIN_APPLICATION, VARIABLES, constants));
+        compiled.put(Artifact.README, CompiledTemplate.compile(README, VARIABLES, constants));
+        compiled.put(Artifact.UUID_V7, CompiledTemplate.compile(UUID_V7, VARIABLES, constants));
+        if (dbType != DatabaseType.MONGODB) {
+            compiled.put(Artifact.JACKSON_CONFIG, CompiledTemplate.compile(JACKSON_CONFIG, VARIABLES, constants));
+        }
+        if (dockerCompose != null) {
+            compiled.put(Artifact.DOCKER_COMPOSE, CompiledTemplate.compile(dockerCompose, VARIABLES, constants));
+        }
+        return compiled;
+    }
+
+    private record RenderedKey(Artifact artifact, DatabaseType dbType, String projectName, String basePackage,
+            boolean caching) {
+    }
+}
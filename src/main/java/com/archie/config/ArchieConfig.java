@@ -4,6 +4,9 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.List;
+
 /**
  * Application configuration properties
  */
@@ -14,15 +17,105 @@ public class ArchieConfig {
 
     private Upload upload = new Upload();
     private Generation generation = new Generation();
+    private Analysis analysis = new Analysis();
 
     @Data
     public static class Upload {
         private String directory;
+        private Preprocessing preprocessing = new Preprocessing();
+        private NearDuplicate nearDuplicate = new NearDuplicate();
+    }
+
+    @Data
+    public static class NearDuplicate {
+        private boolean enabled = true;
+        private int maxDistance = 6; // Hamming distance between 64-bit dHashes
+        private int maxEntries = 500_000;
+    }
+
+    @Data
+    public static class Preprocessing {
+        private boolean enabled = true;
+        private int maxDimension = 1536; // longest side in pixels
+        private boolean grayscale = true;
+        private float jpegQuality = 0.85f;
     }
 
     @Data
     public static class Generation {
         private String basePackage;
         private String outputDirectory;
+        private int maxBatchFiles = 20;
+        private int batchParallelism = 4; // diagrams processed concurrently per batch request
+        private int parallelThreshold = 24; // entities; smaller projects are generated on the calling thread
+        private int parallelism = 0; // code generation pool size, 0 = available processors
+        private int artifactCacheEntries = 512; // rendered pom.xml, application.yml, ... per project name/package/database
+        private int defaultPageSize = 20; // generated list endpoints
+        private int maxPageSize = 100; // upper bound for the size request parameter
+        private boolean streamingEndpoints = true; // GET /stream (NDJSON) in generated controllers
+        private List<String> lookupColumns = List.of("email", "username", "status", "createdAt");
+        private int fetchBatchSize = 25; // @BatchSize on generated associations
+        private IdStrategy idStrategy = IdStrategy.AUTO;
+        private int idAllocationSize = 50; // sequence increment, also the generated hibernate.jdbc.batch_size
+        private CacheMode caching = CacheMode.ANNOTATED; // honours cache specs from the instructions
+        private Duration cacheTtl = Duration.ofMinutes(10); // per entity region, unless the analysis says otherwise
+        private int cacheMaxSize = 1000;
+    }
+
+    @Data
+    public static class Analysis {
+        private Cache cache = new Cache();
+        private Client client = new Client();
+        private CircuitBreaker circuitBreaker = new CircuitBreaker();
+        private Routing routing = new Routing();
+        private boolean streaming = false; // use streamGenerateContent for every analysis
+        private boolean structuredOutput = false; // send responseMimeType + responseSchema
+        private boolean repairEnabled = true; // text-only follow-up prompt for broken fragments
+        private int maxRepairFragments = 20; // beyond this the analysis is kept as is
+    }
+
+    @Data
+    public static class Cache {
+        private boolean enabled = true;
+        private int maxEntries = 256;
+        private boolean diskEnabled = false;
+        private String diskDirectory = "analysis-cache"; // resolved under upload.directory
+    }
+
+    @Data
+    public static class Routing {
+        private boolean enabled = false;
+        private String smallModel = "gemini-2.0-flash-lite"; // everything else uses gemini.model
+        private int maxSmallImageBytes = 200_000; // after preprocessing
+        private long maxSmallPixels = 1_500_000;
+        private int maxSmallInstructionChars = 500;
+    }
+
+    @Data
+    public static class CircuitBreaker {
+        private boolean enabled = true;
+        private int windowSize = 20; // most recent calls per model
+        private int minimumCalls = 10;
+        private int failureRateThreshold = 50; // percent
+        private int slowCallRateThreshold = 80; // percent
+        private Duration slowCallDuration = Duration.ofSeconds(30);
+        private Duration openDuration = Duration.ofSeconds(30);
+        private int halfOpenCalls = 3;
+    }
+
+    @Data
+    public static class Client {
+        private String baseUrl = "https://generativelanguage.googleapis.com/v1beta";
+        private Duration connectTimeout = Duration.ofSeconds(10);
+        private Duration readTimeout = Duration.ofSeconds(60);
+        private int maxInFlight = 64; // upper bound for the adaptive concurrency limit
+        private int initialLimit = 8;
+        private int minLimit = 1;
+        private int maxQueued = 256;
+        private Duration queueTimeout = Duration.ofSeconds(30);
+        private int maxRetries = 3;
+        private Duration initialBackoff = Duration.ofMillis(500);
+        private Duration maxBackoff = Duration.ofSeconds(20); // longer Retry-After values fail fast with 503
+        private Duration deadline = Duration.ofSeconds(110); // whole analysis incl. queueing and retries
     }
 }
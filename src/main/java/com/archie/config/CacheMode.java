@@ -0,0 +1,10 @@
+package com.archie.config;
+
+/**
+ * Which generated entities get Caffeine-backed Spring Cache regions
+ */
+public enum CacheMode {
+    NONE, // no caching dependencies, configuration or annotations
+    ANNOTATED, // entities the analysis gave a cache spec, e.g. from the additional instructions
+    ALL // every entity; cache specs from the analysis override the configured TTL and size
+}
@@ -0,0 +1,11 @@
+package com.archie.config;
+
+/**
+ * Primary key generation strategies for generated entities
+ */
+public enum IdStrategy {
+    AUTO, // SEQUENCE where the database has sequences, IDENTITY otherwise
+    SEQUENCE, // pooled sequence, keeps JDBC insert batching; falls back to IDENTITY on MySQL and SQLite
+    IDENTITY, // auto-increment column, one round trip per insert
+    UUID // time-ordered UUIDv7 assigned before insert
+}
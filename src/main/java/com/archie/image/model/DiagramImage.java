@@ -19,6 +19,8 @@ public class DiagramImage {
     private String storedFileName;
     private String mimeType;
     private long fileSize;
+    private long originalFileSize;
     private String uploadedAt;
+    private Long perceptualHash; // dHash of the original upload, null if it could not be decoded
     private byte[] data;
 }
@@ -0,0 +1,230 @@
+package com.archie.image.service;
+
+import com.archie.config.ArchieConfig;
+import com.archie.image.model.DiagramImage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Shrinks uploaded diagrams before they are sent to Gemini.
+ * Downscales to a maximum dimension, optionally converts to grayscale and re-encodes
+ * (PNG for line art, JPEG for photos). The original file on disk is left untouched.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImagePreprocessingService {
+
+    private final ArchieConfig config;
+
+    private static final Set<String> LOSSLESS_MIME_TYPES = Set.of("image/png", "image/gif", "image/bmp");
+
+    private static final int EXIF_ORIENTATION_TAG = 0x0112;
+
+    /**
+     * Preprocess the image in place, keeping the original bytes if nothing is gained
+     */
+    public DiagramImage preprocess(DiagramImage image) {
+        ArchieConfig.Preprocessing settings = config.getUpload().getPreprocessing();
+        if (!settings.isEnabled() || image.getData() == null || image.getData().length == 0) {
+            return image;
+        }
+
+        long startTime = System.currentTimeMillis();
+        try {
+            BufferedImage source = decode(image.getData(), settings.getMaxDimension());
+            if (source == null) {
+                log.debug("No ImageIO reader for {}, sending original image", image.getMimeType());
+                return image;
+            }
+
+            int orientation = readExifOrientation(image.getData());
+            BufferedImage target = resize(source, settings.getMaxDimension(), settings.isGrayscale(), orientation);
+
+            boolean lossless = image.getMimeType() != null
+                    && LOSSLESS_MIME_TYPES.contains(image.getMimeType().toLowerCase());
+            String format = lossless ? "png" : "jpeg";
+            byte[] encoded = encode(target, format, lossless ? 0.0f : settings.getJpegQuality());
+
+            if (encoded.length >= image.getData().length) {
+                log.debug("Preprocessing did not shrink {}, sending original image", image.getOriginalFileName());
+                return image;
+            }
+
+            log.info("Preprocessed image {}: {}x{} -> {}x{}, {} -> {} bytes in {}ms",
+                    image.getOriginalFileName(), source.getWidth(), source.getHeight(),
+                    target.getWidth(), target.getHeight(), image.getData().length, encoded.length,
+                    System.currentTimeMillis() - startTime);
+
+            image.setData(encoded);
+            image.setFileSize(encoded.length);
+            image.setMimeType("image/" + format);
+            return image;
+
+        } catch (IOException | RuntimeException e) {
+            log.warn("Image preprocessing failed for {}, sending original image: {}",
+                    image.getOriginalFileName(), e.getMessage());
+            return image;
+        }
+    }
+
+    /**
+     * Decode with source subsampling so multi-megapixel photos never expand to full size in memory.
+     * Subsampling stops at twice the target size; the final step is a smooth resize.
+     */
+    private BufferedImage decode(byte[] data, int maxDimension) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int longestSide = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int subsampling = Math.max(1, longestSide / (maxDimension * 2));
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage resize(BufferedImage source, int maxDimension, boolean grayscale, int orientation) {
+        boolean swapAxes = orientation == 6 || orientation == 8;
+        int sourceWidth = swapAxes ? source.getHeight() : source.getWidth();
+        int sourceHeight = swapAxes ? source.getWidth() : source.getHeight();
+
+        double scale = Math.min(1.0, (double) maxDimension / Math.max(sourceWidth, sourceHeight));
+        int width = Math.max(1, (int) Math.round(sourceWidth * scale));
+        int height = Math.max(1, (int) Math.round(sourceHeight * scale));
+
+        BufferedImage target = new BufferedImage(width, height,
+                grayscale ? BufferedImage.TYPE_BYTE_GRAY : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            // Transparent regions become white paper rather than black
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+
+            // Apply EXIF orientation so phone photos are not sent sideways
+            switch (orientation) {
+                case 3 -> graphics.rotate(Math.PI, width / 2.0, height / 2.0);
+                case 6 -> {
+                    graphics.translate(width, 0);
+                    graphics.rotate(Math.PI / 2);
+                }
+                case 8 -> {
+                    graphics.translate(0, height);
+                    graphics.rotate(-Math.PI / 2);
+                }
+                default -> {
+                    // Already upright
+                }
+            }
+
+            int drawWidth = swapAxes ? height : width;
+            int drawHeight = swapAxes ? width : height;
+            graphics.drawImage(source, 0, 0, drawWidth, drawHeight, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private byte[] encode(BufferedImage image, String format, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOutput = ImageIO.createImageOutputStream(output)) {
+            writer.setOutput(imageOutput);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                // JPEG: visual quality; PNG: 0.0 selects the strongest deflate level
+                param.setCompressionQuality(quality);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * Read the EXIF orientation tag from a JPEG, returning 1 (upright) when absent
+     */
+    private int readExifOrientation(byte[] data) {
+        try {
+            if (data.length < 4 || (data[0] & 0xFF) != 0xFF || (data[1] & 0xFF) != 0xD8) {
+                return 1;
+            }
+            int offset = 2;
+            while (offset + 4 <= data.length && (data[offset] & 0xFF) == 0xFF) {
+                int marker = data[offset + 1] & 0xFF;
+                int length = ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+                if (marker == 0xE1 && offset + 10 <= data.length
+                        && new String(data, offset + 4, 4, StandardCharsets.US_ASCII).equals("Exif")) {
+                    return readTiffOrientation(data, offset + 10);
+                }
+                if (marker == 0xDA) {
+                    break; // start of scan, no more metadata
+                }
+                offset += 2 + length;
+            }
+        } catch (RuntimeException e) {
+            log.debug("Ignoring unreadable EXIF data: {}", e.getMessage());
+        }
+        return 1;
+    }
+
+    private int readTiffOrientation(byte[] data, int tiffStart) {
+        boolean littleEndian = data[tiffStart] == 'I';
+        int ifdOffset = readInt(data, tiffStart + 4, littleEndian);
+        int entryStart = tiffStart + ifdOffset;
+        int entryCount = readShort(data, entryStart, littleEndian);
+        for (int i = 0; i < entryCount; i++) {
+            int entry = entryStart + 2 + i * 12;
+            if (readShort(data, entry, littleEndian) == EXIF_ORIENTATION_TAG) {
+                return readShort(data, entry + 8, littleEndian);
+            }
+        }
+        return 1;
+    }
+
+    private int readShort(byte[] data, int offset, boolean littleEndian) {
+        int b0 = data[offset] & 0xFF;
+        int b1 = data[offset + 1] & 0xFF;
+        return littleEndian ? (b1 << 8) | b0 : (b0 << 8) | b1;
+    }
+
+    private int readInt(byte[] data, int offset, boolean littleEndian) {
+        int high = readShort(data, littleEndian ? offset + 2 : offset, littleEndian);
+        int low = readShort(data, littleEndian ? offset : offset + 2, littleEndian);
+        return (high << 16) | low;
+    }
+}
@@ -2,7 +2,6 @@ package com.archie.image.service;
 
 import com.archie.config.ArchieConfig;
 import com.archie.image.model.DiagramImage;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
@@ -15,6 +14,7 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -22,10 +22,22 @@ import java.util.UUID;
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class ImageStorageService {
 
     private final ArchieConfig config;
+    private final NearDuplicateIndex nearDuplicates;
+
+    /**
+     * A previously analyzed upload of the same owner that looks like the same diagram
+     */
+    public record SimilarImage(String imageId, String reuseKey, String context, int distance) {
+    }
+
+    public ImageStorageService(ArchieConfig config) {
+        this.config = config;
+        ArchieConfig.NearDuplicate settings = config.getUpload().getNearDuplicate();
+        this.nearDuplicates = new NearDuplicateIndex(settings.getMaxDistance(), settings.getMaxEntries());
+    }
 
     private static final List<String> ALLOWED_MIME_TYPES = Arrays.asList(
             "image/jpeg",
@@ -66,14 +78,17 @@ public class ImageStorageService {
             log.info("Stored image file: {}", filePath);
 
             // Build result
+            byte[] data = file.getBytes();
             return DiagramImage.builder()
                     .id(imageId)
                     .originalFileName(originalFilename)
                     .storedFileName(storedFileName)
                     .mimeType(file.getContentType())
                     .fileSize(file.getSize())
+                    .originalFileSize(file.getSize())
                     .uploadedAt(LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME))
-                    .data(file.getBytes())
+                    .perceptualHash(computePerceptualHash(data, originalFilename))
+                    .data(data)
                     .build();
 
         } catch (IOException e) {
@@ -82,6 +97,37 @@ public class ImageStorageService {
         }
     }
 
+    /**
+     * Find an earlier upload of the same owner, analyzed and within the configured Hamming distance of this image.
+     * Anonymous uploads (null owner) are never matched.
+     */
+    public Optional<SimilarImage> findSimilar(DiagramImage image, String owner) {
+        if (!config.getUpload().getNearDuplicate().isEnabled() || image.getPerceptualHash() == null
+                || owner == null) {
+            return Optional.empty();
+        }
+        NearDuplicateIndex.Match match = nearDuplicates.nearest(image.getPerceptualHash(), owner);
+        if (match == null || match.entry().imageId().equals(image.getId())) {
+            return Optional.empty();
+        }
+        log.info("Image {} is {} bits from previously analyzed image {}", image.getId(), match.distance(),
+                match.entry().imageId());
+        return Optional.of(new SimilarImage(match.entry().imageId(), match.entry().reuseKey(),
+                match.entry().context(), match.distance()));
+    }
+
+    /**
+     * Make an analyzed image available for near-duplicate reuse by its owner under the given key;
+     * the context identifies the instructions and model it was analyzed with
+     */
+    public void rememberAnalyzed(DiagramImage image, String owner, String reuseKey, String context) {
+        if (config.getUpload().getNearDuplicate().isEnabled() && image.getPerceptualHash() != null
+                && owner != null) {
+            nearDuplicates.add(new NearDuplicateIndex.Entry(image.getPerceptualHash(), owner, image.getId(),
+                    reuseKey, context));
+        }
+    }
+
     /**
      * Retrieve stored image by ID
      */
@@ -156,6 +202,18 @@ public class ImageStorageService {
         }
     }
 
+    private Long computePerceptualHash(byte[] data, String fileName) {
+        if (!config.getUpload().getNearDuplicate().isEnabled()) {
+            return null;
+        }
+        try {
+            return PerceptualHash.dHash(data);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Cannot compute perceptual hash for {}: {}", fileName, e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * Extract file extension from filename
      */
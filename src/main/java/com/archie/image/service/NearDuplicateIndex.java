@@ -0,0 +1,124 @@
+package com.archie.image.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Multi-index hash table for Hamming-distance search over 64-bit perceptual hashes.
+ * The hash is split into maxDistance + 1 disjoint chunks, each with its own exact-match table;
+ * by the pigeonhole principle any hash within maxDistance bits agrees with the query on at least
+ * one chunk, so only those buckets are scanned instead of the whole index.
+ * Entries belong to an owner and only match queries of the same owner.
+ * Oldest entries are evicted once capacity is reached.
+ */
+class NearDuplicateIndex {
+
+    record Entry(long hash, String owner, String imageId, String reuseKey, String context) {
+    }
+
+    record Match(Entry entry, int distance) {
+    }
+
+    private final int maxDistance;
+    private final int capacity;
+    private final int[] shifts;
+    private final long[] masks;
+    private final List<Map<Long, List<Entry>>> tables;
+    private final ArrayDeque<Entry> insertionOrder = new ArrayDeque<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    NearDuplicateIndex(int maxDistance, int capacity) {
+        this.maxDistance = Math.max(0, Math.min(maxDistance, 31));
+        this.capacity = Math.max(1, capacity);
+
+        int chunks = this.maxDistance + 1;
+        this.shifts = new int[chunks];
+        this.masks = new long[chunks];
+        this.tables = new ArrayList<>(chunks);
+        int offset = 0;
+        for (int i = 0; i < chunks; i++) {
+            // Spread 64 bits as evenly as possible over the chunks
+            int bits = 64 / chunks + (i < 64 % chunks ? 1 : 0);
+            shifts[i] = offset;
+            masks[i] = bits == 64 ? -1L : (1L << bits) - 1;
+            offset += bits;
+            tables.add(new HashMap<>());
+        }
+    }
+
+    void add(Entry entry) {
+        lock.writeLock().lock();
+        try {
+            if (insertionOrder.size() >= capacity) {
+                remove(insertionOrder.removeFirst());
+            }
+            for (int i = 0; i < tables.size(); i++) {
+                tables.get(i).computeIfAbsent(chunk(entry.hash(), i), key -> new ArrayList<>(2)).add(entry);
+            }
+            insertionOrder.addLast(entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Closest entry of the owner within maxDistance bits, or null
+     */
+    Match nearest(long hash, String owner) {
+        lock.readLock().lock();
+        try {
+            Entry best = null;
+            int bestDistance = maxDistance + 1;
+            for (int i = 0; i < tables.size() && bestDistance > 0; i++) {
+                List<Entry> bucket = tables.get(i).get(chunk(hash, i));
+                if (bucket == null) {
+                    continue;
+                }
+                for (Entry candidate : bucket) {
+                    if (!candidate.owner().equals(owner)) {
+                        continue;
+                    }
+                    int distance = PerceptualHash.distance(hash, candidate.hash());
+                    if (distance < bestDistance) {
+                        best = candidate;
+                        bestDistance = distance;
+                    }
+                }
+            }
+            return best != null ? new Match(best, bestDistance) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return insertionOrder.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void remove(Entry entry) {
+        for (int i = 0; i < tables.size(); i++) {
+            long key = chunk(entry.hash(), i);
+            List<Entry> bucket = tables.get(i).get(key);
+            if (bucket != null) {
+                bucket.remove(entry);
+                if (bucket.isEmpty()) {
+                    tables.get(i).remove(key);
+                }
+            }
+        }
+    }
+
+    private long chunk(long hash, int index) {
+        return (hash >>> shifts[index]) & masks[index];
+    }
+}
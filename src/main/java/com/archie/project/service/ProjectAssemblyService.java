@@ -1,19 +1,24 @@
 package com.archie.project.service;
 
+import com.archie.ai.model.DiagramAnalysisResult;
 import com.archie.codegen.model.GeneratedProject;
+import com.archie.codegen.service.CodeGenerationService;
+import com.archie.codegen.sink.DirectoryGenerationSink;
+import com.archie.codegen.sink.GenerationSink;
+import com.archie.codegen.sink.ZipGenerationSink;
 import com.archie.config.ArchieConfig;
+import com.archie.config.DatabaseType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Map;
-import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 /**
@@ -25,49 +30,51 @@ import java.util.zip.ZipOutputStream;
 public class ProjectAssemblyService {
 
     private final ArchieConfig config;
+    private final CodeGenerationService codeGenerationService;
 
     /**
      * Create ZIP file containing the complete Spring Boot project
      */
     public byte[] createProjectZip(GeneratedProject project) {
-        try {
-            log.info("Creating ZIP package for project: {}", project.getProjectName());
-
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-
-            try (ZipOutputStream zos = new ZipOutputStream(baos)) {
-                String projectDir = sanitizeProjectName(project.getProjectName()) + "/";
-
-                // Add all generated files to ZIP
-                for (Map.Entry<String, String> file : project.getGeneratedFiles().entrySet()) {
-                    String filePath = projectDir + file.getKey();
-                    String content = file.getValue();
-
-                    ZipEntry entry = new ZipEntry(filePath);
-                    zos.putNextEntry(entry);
-                    zos.write(content.getBytes(StandardCharsets.UTF_8));
-                    zos.closeEntry();
-                }
-
-                // Add .gitignore
-                String gitignore = generateGitignore();
-                ZipEntry gitignoreEntry = new ZipEntry(projectDir + ".gitignore");
-                zos.putNextEntry(gitignoreEntry);
-                zos.write(gitignore.getBytes(StandardCharsets.UTF_8));
-                zos.closeEntry();
-            }
+        log.info("Creating ZIP package for project: {}", project.getProjectName());
 
-            byte[] zipBytes = baos.toByteArray();
-            log.info("Created ZIP package: {} bytes", zipBytes.length);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        writeProjectZip(project, baos);
 
-            return zipBytes;
+        byte[] zipBytes = baos.toByteArray();
+        log.info("Created ZIP package: {} bytes", zipBytes.length);
+        return zipBytes;
+    }
 
+    /**
+     * Stream a generated project as a ZIP, one entry at a time
+     */
+    public void writeProjectZip(GeneratedProject project, OutputStream out) {
+        try (ZipOutputStream zos = new ZipOutputStream(out)) {
+            GenerationSink sink = new ZipGenerationSink(zos, sanitizeProjectName(project.getProjectName()) + "/");
+            writeFiles(project, sink);
         } catch (IOException e) {
             log.error("Error creating project ZIP: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to create project ZIP: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Generate a project straight into a ZIP stream (download-only mode).
+     * Sources are rendered entry by entry; the project is never held in memory as a whole.
+     */
+    public void writeProjectZip(DiagramAnalysisResult analysisResult, DatabaseType databaseType, OutputStream out) {
+        try (ZipOutputStream zos = new ZipOutputStream(out)) {
+            GenerationSink sink = new ZipGenerationSink(zos,
+                    sanitizeProjectName(analysisResult.getProjectName()) + "/");
+            codeGenerationService.writeProject(analysisResult, databaseType, sink);
+            sink.write(".gitignore", content -> content.append(generateGitignore()));
+        } catch (IOException e) {
+            log.error("Error streaming project ZIP: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to create project ZIP: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Save generated project to disk
      */
@@ -82,15 +89,7 @@ public class ProjectAssemblyService {
             Files.createDirectories(projectPath);
 
             // Write all files
-            for (Map.Entry<String, String> file : project.getGeneratedFiles().entrySet()) {
-                Path filePath = projectPath.resolve(file.getKey());
-                Files.createDirectories(filePath.getParent());
-                Files.writeString(filePath, file.getValue(), StandardCharsets.UTF_8);
-            }
-
-            // Write .gitignore
-            Path gitignorePath = projectPath.resolve(".gitignore");
-            Files.writeString(gitignorePath, generateGitignore(), StandardCharsets.UTF_8);
+            writeFiles(project, new DirectoryGenerationSink(projectPath));
 
             log.info("Project saved successfully to: {}", projectPath);
             return projectPath;
@@ -101,6 +100,16 @@ public class ProjectAssemblyService {
         }
     }
 
+    /**
+     * Write all generated files followed by .gitignore
+     */
+    private void writeFiles(GeneratedProject project, GenerationSink sink) throws IOException {
+        for (Map.Entry<String, String> file : project.getGeneratedFiles().entrySet()) {
+            sink.write(file.getKey(), content -> content.append(file.getValue()));
+        }
+        sink.write(".gitignore", content -> content.append(generateGitignore()));
+    }
+
     private String sanitizeProjectName(String projectName) {
         return projectName
                 .toLowerCase()
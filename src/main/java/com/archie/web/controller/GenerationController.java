@@ -1,36 +1,55 @@
 package com.archie.web.controller;
 
+import com.archie.ai.client.GeminiUnavailableException;
 import com.archie.ai.model.DiagramAnalysisRequest;
 import com.archie.ai.model.DiagramAnalysisResult;
+import com.archie.ai.parser.AnalysisStreamListener;
+import com.archie.ai.service.AnalysisValidator;
 import com.archie.ai.service.GeminiAnalysisService;
+import com.archie.ai.service.ModelRouter;
 import com.archie.auth.entity.User;
 import com.archie.auth.repository.UserRepository;
 import com.archie.codegen.model.GeneratedProject;
 import com.archie.codegen.service.CodeGenerationService;
+import com.archie.config.ArchieConfig;
 import com.archie.config.DatabaseType;
 import com.archie.image.model.DiagramImage;
+import com.archie.image.service.ImagePreprocessingService;
 import com.archie.image.service.ImageStorageService;
 import com.archie.project.service.ProjectAssemblyService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.ByteArrayOutputStream;
+import javax.lang.model.SourceVersion;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 /**
  * REST API controller for diagram processing and code generation
@@ -43,10 +62,19 @@ import java.util.zip.ZipOutputStream;
 public class GenerationController {
 
     private final ImageStorageService imageStorageService;
+    private final ImagePreprocessingService imagePreprocessingService;
     private final GeminiAnalysisService geminiAnalysisService;
+    private final AnalysisValidator analysisValidator;
     private final CodeGenerationService codeGenerationService;
     private final ProjectAssemblyService projectAssemblyService;
     private final UserRepository userRepository;
+    private final ArchieConfig config;
+
+    private static final long STREAM_TIMEOUT_MS = 180_000L;
+    private static final long BATCH_TIMEOUT_MS = 900_000L;
+
+    // Runs batch items; parallelism per batch is bounded by a semaphore
+    private final ExecutorService batchExecutor = Executors.newVirtualThreadPerTaskExecutor();
 
     // In-memory storage for generated projects (for demo purposes)
     private final Map<String, GeneratedProject> projectCache = new ConcurrentHashMap<>();
@@ -62,11 +90,11 @@ public class GenerationController {
 
     @PostMapping(value = "/analyze", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @Operation(summary = "Analyze diagram and generate code", description = "Upload a hand-drawn diagram to generate Spring Boot project")
-    @Transactional
-    public ResponseEntity<GenerationResponse> analyzeAndGenerate(
+    public CompletableFuture<ResponseEntity<GenerationResponse>> analyzeAndGenerate(
             @RequestParam("file") MultipartFile file,
             @RequestParam(value = "instructions", required = false) String additionalInstructions,
-            @RequestParam(value = "database", required = false, defaultValue = "H2") String databaseType) {
+            @RequestParam(value = "database", required = false, defaultValue = "H2") String databaseType,
+            @RequestParam(value = "reuseSimilar", required = false, defaultValue = "false") boolean reuseSimilar) {
 
         long startTime = System.currentTimeMillis();
 
@@ -74,70 +102,149 @@ public class GenerationController {
             log.info("Received generation request for file: {}, database: {}", file.getOriginalFilename(),
                     databaseType);
 
-            // Parse database type
-            DatabaseType dbType;
-            try {
-                dbType = DatabaseType.valueOf(databaseType.toUpperCase());
-            } catch (IllegalArgumentException e) {
-                dbType = DatabaseType.H2;
-            }
+            DatabaseType dbType = parseDatabaseType(databaseType);
 
-            // Step 1: Store image
-            DiagramImage image = imageStorageService.storeImage(file);
+            // Step 1: Store image, then shrink the copy sent to Gemini
+            Map<String, Long> stageTimings = newStageTimings();
+            DiagramImage stored = timed(stageTimings, "storage", () -> imageStorageService.storeImage(file));
+            DiagramImage image = timed(stageTimings, "preprocessing", () -> imagePreprocessingService.preprocess(stored));
             log.info("Image stored with ID: {}", image.getId());
 
-            // Step 2: Analyze with Gemini
-            DiagramAnalysisRequest analysisRequest = DiagramAnalysisRequest.builder()
-                    .imageData(image.getData())
-                    .imageFileName(image.getOriginalFileName())
-                    .imageMimeType(image.getMimeType())
-                    .additionalInstructions(additionalInstructions)
-                    .build();
+            // Captured here because the continuation runs off the request thread
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
 
-            DiagramAnalysisResult analysisResult = geminiAnalysisService.analyzeDiagram(analysisRequest);
-            log.info("Diagram analyzed: type={}, {} entities, {} relationships",
-                    analysisResult.getDiagramType(),
-                    analysisResult.getEntities() != null ? analysisResult.getEntities().size() : 0,
-                    analysisResult.getRelationships() != null ? analysisResult.getRelationships().size() : 0);
+            // A re-photographed diagram can reuse the caller's own earlier analysis when they opt in,
+            // as long as it was made with the same instructions and model
+            DiagramAnalysisRequest analysisRequest = buildAnalysisRequest(image, additionalInstructions);
+            String owner = ownerOf(auth);
+            // Small diagrams may go to a faster model
+            ModelRouter.Route route = geminiAnalysisService.route(analysisRequest);
+            String context = geminiAnalysisService.reuseContext(analysisRequest, route);
+            Optional<ImageStorageService.SimilarImage> similar = imageStorageService.findSimilar(image, owner);
+            Optional<DiagramAnalysisResult> reused = reuseSimilar
+                    ? similar.filter(match -> match.context().equals(context))
+                            .flatMap(match -> geminiAnalysisService.findCached(match.reuseKey()))
+                    : Optional.empty();
+            if (reused.isPresent()) {
+                log.info("Reusing analysis of similar image {}", similar.get().imageId());
+            }
 
-            // Step 3: Generate code with selected database
-            GeneratedProject project = codeGenerationService.generateProject(analysisResult, dbType);
-            log.info("Code generation completed: {} files generated", project.getGeneratedFiles().size());
+            // Step 2: Analyze with Gemini (the servlet thread is released while Gemini works)
+            CompletableFuture<DiagramAnalysisResult> analysis = reused.isPresent()
+                    ? CompletableFuture.completedFuture(reused.get())
+                    : timedAsync(stageTimings, "analysis", () -> rememberAnalyzed(image, owner, analysisRequest, route,
+                            geminiAnalysisService.analyzeDiagramAsync(analysisRequest, route)));
+
+            return analysis
+                    .thenApply(analysisResult -> {
+                        GenerationResponse response = completeGeneration(image, analysisResult, dbType, auth,
+                                startTime, stageTimings);
+                        similar.ifPresent(match -> {
+                            response.setSimilarImageId(match.imageId());
+                            response.setSimilarityDistance(match.distance());
+                        });
+                        response.setReusedAnalysis(reused.isPresent());
+                        return ResponseEntity.ok(response);
+                    })
+                    .exceptionally(this::generationFailed);
 
-            // Cache the project for download
-            projectCache.put(project.getProjectId(), project);
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(generationFailed(e));
+        }
+    }
 
-            // Update user statistics
-            long generationTime = System.currentTimeMillis() - startTime;
-            int entityCount = project.getStatistics() != null ? project.getStatistics().getEntityCount() : 0;
-            updateUserStats(generationTime, entityCount);
+    @PostMapping(value = "/analyze/stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Analyze diagram with streamed progress", description = "Emits 'entity' and 'relationship' events while Gemini is still generating, then a final 'result' event")
+    public SseEmitter analyzeAndGenerateStream(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "instructions", required = false) String additionalInstructions,
+            @RequestParam(value = "database", required = false, defaultValue = "H2") String databaseType) {
 
-            // Build response
-            GenerationResponse response = GenerationResponse.builder()
-                    .success(true)
-                    .message("Project generated successfully")
-                    .imageId(image.getId())
-                    .projectId(project.getProjectId())
-                    .projectName(project.getProjectName())
-                    .diagramType(analysisResult.getDiagramType())
-                    .databaseType(dbType.name())
-                    .analysisResult(analysisResult)
-                    .generatedFiles(project.getGeneratedFiles())
-                    .statistics(project.getStatistics())
-                    .build();
+        long startTime = System.currentTimeMillis();
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
 
-            return ResponseEntity.ok(response);
+        try {
+            log.info("Received streaming generation request for file: {}, database: {}",
+                    file.getOriginalFilename(), databaseType);
+
+            DatabaseType dbType = parseDatabaseType(databaseType);
+            Map<String, Long> stageTimings = newStageTimings();
+            DiagramImage stored = timed(stageTimings, "storage", () -> imageStorageService.storeImage(file));
+            DiagramImage image = timed(stageTimings, "preprocessing", () -> imagePreprocessingService.preprocess(stored));
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+
+            AnalysisStreamListener listener = new AnalysisStreamListener() {
+                @Override
+                public void onEntity(DiagramAnalysisResult.EntityMetadata entity) {
+                    sendEvent(emitter, "entity", entity);
+                }
+
+                @Override
+                public void onRelationship(DiagramAnalysisResult.RelationshipMetadata relationship) {
+                    sendEvent(emitter, "relationship", relationship);
+                }
+            };
+
+            DiagramAnalysisRequest analysisRequest = buildAnalysisRequest(image, additionalInstructions);
+            ModelRouter.Route route = geminiAnalysisService.route(analysisRequest);
+            timedAsync(stageTimings, "analysis", () -> rememberAnalyzed(image, ownerOf(auth), analysisRequest, route,
+                    geminiAnalysisService.analyzeDiagramStreaming(analysisRequest, route, listener)))
+                    .thenApply(analysisResult -> completeGeneration(image, analysisResult, dbType, auth, startTime,
+                            stageTimings))
+                    .whenComplete((response, error) -> {
+                        if (error != null) {
+                            sendEvent(emitter, "error", generationFailed(error).getBody());
+                        } else {
+                            sendEvent(emitter, "result", response);
+                        }
+                        emitter.complete();
+                    });
 
         } catch (Exception e) {
-            log.error("Error during generation: {}", e.getMessage(), e);
+            sendEvent(emitter, "error", generationFailed(e).getBody());
+            emitter.complete();
+        }
 
-            GenerationResponse errorResponse = GenerationResponse.builder()
+        return emitter;
+    }
+
+    @PostMapping(value = "/analyze/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Analyze many diagrams in parallel", description = "Generates one project per uploaded diagram; emits a 'result' event per file as it completes, then a 'complete' event")
+    public SseEmitter analyzeAndGenerateBatch(
+            @RequestParam("files") List<MultipartFile> files,
+            @RequestParam(value = "instructions", required = false) String additionalInstructions,
+            @RequestParam(value = "database", required = false, defaultValue = "H2") String databaseType) {
+
+        SseEmitter emitter = new SseEmitter(BATCH_TIMEOUT_MS);
+        int maxFiles = config.getGeneration().getMaxBatchFiles();
+
+        if (files == null || files.isEmpty() || files.size() > maxFiles) {
+            sendEvent(emitter, "error", GenerationResponse.builder()
                     .success(false)
-                    .message("Generation failed: " + e.getMessage())
-                    .build();
+                    .message("A batch must contain between 1 and " + maxFiles + " files")
+                    .build());
+            emitter.complete();
+            return emitter;
+        }
+
+        log.info("Received batch generation request for {} files, database: {}", files.size(), databaseType);
+
+        DatabaseType dbType = parseDatabaseType(databaseType);
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
 
-            return ResponseEntity.internalServerError().body(errorResponse);
+        // Multipart temp files are deleted when the request thread returns, so store them up front
+        List<BatchItem> items = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            MultipartFile file = files.get(i);
+            try {
+                items.add(new BatchItem(i, file.getOriginalFilename(), imageStorageService.storeImage(file), null));
+            } catch (Exception e) {
+                items.add(new BatchItem(i, file.getOriginalFilename(), null, e));
+            }
         }
+
+        batchExecutor.execute(() -> runBatch(items, additionalInstructions, dbType, auth, emitter));
+        return emitter;
     }
 
     @PostMapping("/update-file")
@@ -173,38 +280,356 @@ public class GenerationController {
         }
     }
 
+    @PostMapping("/regenerate/{projectId}")
+    @Operation(summary = "Regenerate a project incrementally", description = "Apply an edited analysis result and regenerate only the affected files")
+    public ResponseEntity<GenerationResponse> regenerateProject(
+            @PathVariable String projectId,
+            @RequestBody RegenerateRequest request) {
+        try {
+            GeneratedProject previous = projectCache.get(projectId);
+            if (previous == null) {
+                return ResponseEntity.notFound().build();
+            }
+            String problem = generationProblem(request.getAnalysisResult());
+            if (problem != null) {
+                log.warn("Rejecting regeneration of project {}: {}", projectId, problem);
+                return ResponseEntity.badRequest().body(GenerationResponse.builder()
+                        .success(false)
+                        .message("Invalid analysis result: " + problem)
+                        .build());
+            }
+
+            DatabaseType dbType = request.getDatabase() != null ? parseDatabaseType(request.getDatabase())
+                    : previous.getDatabaseType() != null ? previous.getDatabaseType() : DatabaseType.H2;
+            GeneratedProject project = codeGenerationService.regenerateProject(previous, request.getAnalysisResult(),
+                    dbType);
+            projectCache.put(projectId, project);
+
+            return ResponseEntity.ok(GenerationResponse.builder()
+                    .success(true)
+                    .message("Project regenerated successfully")
+                    .projectId(projectId)
+                    .projectName(project.getProjectName())
+                    .diagramType(request.getAnalysisResult().getDiagramType())
+                    .databaseType(dbType.name())
+                    .analysisResult(request.getAnalysisResult())
+                    .generatedFiles(project.getGeneratedFiles())
+                    .statistics(project.getStatistics())
+                    .build());
+
+        } catch (Exception e) {
+            log.error("Error regenerating project: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().body(
+                    GenerationResponse.builder()
+                            .success(false)
+                            .message("Regeneration failed: " + e.getMessage())
+                            .build());
+        }
+    }
+
     @GetMapping("/download/{projectId}")
     @Operation(summary = "Download generated project as ZIP", description = "Download the complete Spring Boot project")
-    public ResponseEntity<byte[]> downloadProject(@PathVariable String projectId) {
+    public ResponseEntity<StreamingResponseBody> downloadProject(@PathVariable String projectId) {
+        GeneratedProject project = projectCache.get(projectId);
+        if (project == null) {
+            log.warn("Project not found: {}", projectId);
+            return ResponseEntity.notFound().build();
+        }
+
+        log.info("Downloading project: {}", project.getProjectName());
+        return zipResponse(project.getProjectName(),
+                out -> projectAssemblyService.writeProjectZip(project, out));
+    }
+
+    @PostMapping("/download")
+    @Operation(summary = "Generate and download a project as ZIP", description = "Generate the project for an analysis result straight into the ZIP download without keeping it on the server")
+    public ResponseEntity<?> generateAndDownload(@RequestBody DownloadRequest request) {
+        // Once the ZIP starts streaming the status is sent, so reject bad input up front
+        String problem = generationProblem(request.getAnalysisResult());
+        if (problem != null) {
+            log.warn("Rejecting project download: {}", problem);
+            return ResponseEntity.badRequest().body(GenerationResponse.builder()
+                    .success(false)
+                    .message("Invalid analysis result: " + problem)
+                    .build());
+        }
+
+        DatabaseType dbType = parseDatabaseType(request.getDatabase() != null ? request.getDatabase() : "H2");
+        log.info("Streaming project download: {} with database: {}",
+                request.getAnalysisResult().getProjectName(), dbType);
+        return zipResponse(request.getAnalysisResult().getProjectName(),
+                out -> projectAssemblyService.writeProjectZip(request.getAnalysisResult(), dbType, out));
+    }
+
+    /**
+     * First reason the analysis cannot be generated into a project, or null if it can
+     */
+    private String generationProblem(DiagramAnalysisResult analysis) {
+        if (analysis == null) {
+            return "analysisResult is required";
+        }
+        if (analysis.getProjectName() == null || analysis.getProjectName().isBlank()) {
+            return "projectName is required";
+        }
+        if (analysis.getBasePackage() == null || !SourceVersion.isName(analysis.getBasePackage())) {
+            return "basePackage '" + analysis.getBasePackage() + "' is not a valid Java package name";
+        }
+        if (analysis.getEntities() == null || analysis.getEntities().isEmpty()) {
+            return "at least one entity is required";
+        }
+
+        List<AnalysisValidator.Issue> issues = analysisValidator.validate(analysis);
+        if (!issues.isEmpty()) {
+            AnalysisValidator.Issue issue = issues.get(0);
+            return issue.fragment().name().toLowerCase() + " #" + (issue.index() + 1) + ": " + issue.problem();
+        }
+        for (DiagramAnalysisResult.EntityMetadata entity : analysis.getEntities()) {
+            if (!isJavaIdentifier(entity.getName())) {
+                return "entity name '" + entity.getName() + "' is not a valid Java identifier";
+            }
+            for (DiagramAnalysisResult.AttributeMetadata attribute : entity.getAttributes()) {
+                if (!isJavaIdentifier(attribute.getName())) {
+                    return "attribute '" + attribute.getName() + "' of entity " + entity.getName()
+                            + " is not a valid Java identifier";
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean isJavaIdentifier(String name) {
+        return SourceVersion.isIdentifier(name) && !SourceVersion.isKeyword(name);
+    }
+
+    private ResponseEntity<StreamingResponseBody> zipResponse(String projectName, StreamingResponseBody body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        headers.setContentDispositionFormData("attachment", projectName + ".zip");
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
+
+    /**
+     * Fan the batch out with at most batchParallelism items in flight; each file's result is sent
+     * as soon as it is ready, so total time approaches that of the slowest diagram
+     */
+    private void runBatch(List<BatchItem> items, String additionalInstructions, DatabaseType dbType,
+            Authentication auth, SseEmitter emitter) {
+        long batchStart = System.currentTimeMillis();
+        Semaphore permits = new Semaphore(Math.max(1, config.getGeneration().getBatchParallelism()));
+        List<CompletableFuture<Boolean>> tasks = new ArrayList<>(items.size());
+
         try {
-            GeneratedProject project = projectCache.get(projectId);
-            if (project == null) {
-                log.warn("Project not found: {}", projectId);
-                return ResponseEntity.notFound().build();
+            for (BatchItem item : items) {
+                if (item.error() != null) {
+                    sendEvent(emitter, "result", batchResult(item, generationFailed(item.error()).getBody()));
+                    tasks.add(CompletableFuture.completedFuture(false));
+                    continue;
+                }
+
+                permits.acquire();
+                long startTime = System.currentTimeMillis();
+                Map<String, Long> stageTimings = newStageTimings();
+                CompletableFuture<Boolean> task = CompletableFuture
+                        .supplyAsync(() -> timed(stageTimings, "preprocessing",
+                                () -> imagePreprocessingService.preprocess(item.image())), batchExecutor)
+                        .thenCompose(image -> timedAsync(stageTimings, "analysis", () -> {
+                            DiagramAnalysisRequest analysisRequest = buildAnalysisRequest(image, additionalInstructions);
+                            ModelRouter.Route route = geminiAnalysisService.route(analysisRequest);
+                            return rememberAnalyzed(image, ownerOf(auth), analysisRequest, route,
+                                    geminiAnalysisService.analyzeDiagramAsync(analysisRequest, route));
+                        })
+                                .thenApplyAsync(analysisResult -> completeGeneration(image, analysisResult, dbType,
+                                        auth, startTime, stageTimings), batchExecutor))
+                        .handle((response, error) -> {
+                            GenerationResponse body = error != null ? generationFailed(error).getBody() : response;
+                            sendEvent(emitter, "result", batchResult(item, body));
+                            return error == null;
+                        })
+                        .whenComplete((succeeded, error) -> permits.release());
+                tasks.add(task);
             }
 
-            // Create ZIP file
-            byte[] zipBytes = createZipFile(project);
+            CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).join();
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", project.getProjectName() + ".zip");
-            headers.setContentLength(zipBytes.length);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Batch generation interrupted");
+        }
 
-            log.info("Downloading project: {} ({} bytes)", project.getProjectName(), zipBytes.length);
-            return ResponseEntity.ok().headers(headers).body(zipBytes);
+        long succeeded = tasks.stream().filter(task -> task.isDone() && task.join()).count();
+        log.info("Batch generation finished: {}/{} succeeded in {}ms", succeeded, items.size(),
+                System.currentTimeMillis() - batchStart);
+        sendEvent(emitter, "complete", Map.of(
+                "total", items.size(),
+                "succeeded", succeeded,
+                "failed", items.size() - succeeded,
+                "durationMs", System.currentTimeMillis() - batchStart));
+        emitter.complete();
+    }
 
-        } catch (Exception e) {
-            log.error("Error downloading project: {}", e.getMessage(), e);
-            return ResponseEntity.internalServerError().build();
+    private BatchItemResponse batchResult(BatchItem item, GenerationResponse response) {
+        return BatchItemResponse.builder()
+                .index(item.index())
+                .fileName(item.fileName())
+                .response(response)
+                .build();
+    }
+
+    private DatabaseType parseDatabaseType(String databaseType) {
+        try {
+            return DatabaseType.valueOf(databaseType.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return DatabaseType.H2;
         }
     }
 
-    private void updateUserStats(long generationTime, int entityCount) {
+    private DiagramAnalysisRequest buildAnalysisRequest(DiagramImage image, String additionalInstructions) {
+        return DiagramAnalysisRequest.builder()
+                .imageData(image.getData())
+                .imageFileName(image.getOriginalFileName())
+                .imageMimeType(image.getMimeType())
+                .additionalInstructions(additionalInstructions)
+                .build();
+    }
+
+    /**
+     * Index the image for near-duplicate lookup by its owner once its analysis has succeeded
+     */
+    private CompletableFuture<DiagramAnalysisResult> rememberAnalyzed(DiagramImage image, String owner,
+            DiagramAnalysisRequest analysisRequest, ModelRouter.Route route,
+            CompletableFuture<DiagramAnalysisResult> analysis) {
+        String reuseKey = geminiAnalysisService.cacheKey(analysisRequest, route);
+        String context = geminiAnalysisService.reuseContext(analysisRequest, route);
+        return analysis.thenApply(result -> {
+            imageStorageService.rememberAnalyzed(image, owner, reuseKey, context);
+            return result;
+        });
+    }
+
+    /**
+     * Username of the authenticated caller, null for anonymous requests
+     */
+    private static String ownerOf(Authentication auth) {
+        return auth != null && auth.isAuthenticated() && !"anonymousUser".equals(auth.getPrincipal())
+                ? auth.getName()
+                : null;
+    }
+
+    /**
+     * Generate code for an analyzed diagram, cache the project and record user statistics
+     */
+    private GenerationResponse completeGeneration(DiagramImage image, DiagramAnalysisResult analysisResult,
+            DatabaseType dbType, Authentication auth, long startTime, Map<String, Long> stageTimings) {
+        log.info("Diagram analyzed: type={}, {} entities, {} relationships",
+                analysisResult.getDiagramType(),
+                analysisResult.getEntities() != null ? analysisResult.getEntities().size() : 0,
+                analysisResult.getRelationships() != null ? analysisResult.getRelationships().size() : 0);
+
+        // Step 3: Generate code with selected database
+        GeneratedProject project = timed(stageTimings, "generation",
+                () -> codeGenerationService.generateProject(analysisResult, dbType));
+        log.info("Code generation completed: {} files generated", project.getGeneratedFiles().size());
+
+        // Record what preprocessing saved on the upload to Gemini
+        if (project.getStatistics() != null) {
+            project.getStatistics().setOriginalImageBytes(image.getOriginalFileSize());
+            project.getStatistics().setProcessedImageBytes(image.getFileSize());
+            project.getStatistics().setImageBytesSaved(image.getOriginalFileSize() - image.getFileSize());
+            project.getStatistics().setStageTimings(stageTimings);
+        }
+
+        // Cache the project for download
+        projectCache.put(project.getProjectId(), project);
+
+        // Update user statistics
+        long generationTime = System.currentTimeMillis() - startTime;
+        int entityCount = project.getStatistics() != null ? project.getStatistics().getEntityCount() : 0;
+        updateUserStats(auth, generationTime, entityCount);
+
+        // Build response
+        return GenerationResponse.builder()
+                .success(true)
+                .message("Project generated successfully")
+                .imageId(image.getId())
+                .projectId(project.getProjectId())
+                .projectName(project.getProjectName())
+                .diagramType(analysisResult.getDiagramType())
+                .databaseType(dbType.name())
+                .analysisResult(analysisResult)
+                .generatedFiles(project.getGeneratedFiles())
+                .statistics(project.getStatistics())
+                .build();
+    }
+
+    /**
+     * Per-request wall time of each pipeline stage in milliseconds, in execution order
+     */
+    private Map<String, Long> newStageTimings() {
+        return Collections.synchronizedMap(new LinkedHashMap<>());
+    }
+
+    private <T> T timed(Map<String, Long> stageTimings, String stage, Supplier<T> step) {
+        long start = System.currentTimeMillis();
         try {
-            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-            if (auth != null && auth.isAuthenticated() && !"anonymousUser".equals(auth.getPrincipal())) {
-                String username = auth.getName();
+            return step.get();
+        } finally {
+            stageTimings.put(stage, System.currentTimeMillis() - start);
+        }
+    }
+
+    private <T> CompletableFuture<T> timedAsync(Map<String, Long> stageTimings, String stage,
+            Supplier<CompletableFuture<T>> step) {
+        long start = System.currentTimeMillis();
+        return step.get().whenComplete((result, error) -> stageTimings.put(stage, System.currentTimeMillis() - start));
+    }
+
+    private void sendEvent(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping '{}' event, client disconnected: {}", name, e.getMessage());
+        }
+    }
+
+    private ResponseEntity<GenerationResponse> generationFailed(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        log.error("Error during generation: {}", cause.getMessage(), cause);
+
+        GenerationResponse errorResponse = GenerationResponse.builder()
+                .success(false)
+                .message("Generation failed: " + cause.getMessage())
+                .build();
+
+        // Gemini overload is a temporary condition: tell clients to come back instead of a 500
+        GeminiUnavailableException unavailable = findCause(cause, GeminiUnavailableException.class);
+        if (unavailable != null) {
+            ResponseEntity.BodyBuilder builder = ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE);
+            if (unavailable.getRetryAfter() != null) {
+                builder.header(HttpHeaders.RETRY_AFTER,
+                        String.valueOf(Math.max(1, unavailable.getRetryAfter().toSeconds())));
+            }
+            return builder.body(errorResponse);
+        }
+
+        return ResponseEntity.internalServerError().body(errorResponse);
+    }
+
+    private static <T extends Throwable> T findCause(Throwable error, Class<T> type) {
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            if (type.isInstance(current)) {
+                return type.cast(current);
+            }
+            if (current.getCause() == current) {
+                break;
+            }
+        }
+        return null;
+    }
+
+    private void updateUserStats(Authentication auth, long generationTime, int entityCount) {
+        try {
+            String username = ownerOf(auth);
+            if (username != null) {
                 userRepository.findByUsername(username).ifPresent(user -> {
                     userRepository.incrementUserStats(user.getId(), generationTime, entityCount);
                     log.info("Updated stats for user: {} - added {} entities", username, entityCount);
@@ -215,20 +640,9 @@ public class GenerationController {
         }
     }
 
-    private byte[] createZipFile(GeneratedProject project) throws Exception {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        try (ZipOutputStream zos = new ZipOutputStream(baos)) {
-            String rootFolder = project.getProjectName() + "/";
-
-            for (Map.Entry<String, String> entry : project.getGeneratedFiles().entrySet()) {
-                String filePath = rootFolder + entry.getKey();
-                ZipEntry zipEntry = new ZipEntry(filePath);
-                zos.putNextEntry(zipEntry);
-                zos.write(entry.getValue().getBytes());
-                zos.closeEntry();
-            }
-        }
-        return baos.toByteArray();
+    @PreDestroy
+    public void shutdown() {
+        batchExecutor.shutdown();
     }
 
     @lombok.Data
@@ -246,6 +660,22 @@ public class GenerationController {
         private DiagramAnalysisResult analysisResult;
         private Map<String, String> generatedFiles;
         private GeneratedProject.GenerationStatistics statistics;
+        private String similarImageId; // earlier upload that looks like the same diagram
+        private Integer similarityDistance; // Hamming distance of the perceptual hashes
+        private boolean reusedAnalysis;
+    }
+
+    @lombok.Data
+    @lombok.Builder
+    @lombok.NoArgsConstructor
+    @lombok.AllArgsConstructor
+    public static class BatchItemResponse {
+        private int index;
+        private String fileName;
+        private GenerationResponse response;
+    }
+
+    private record BatchItem(int index, String fileName, DiagramImage image, Exception error) {
     }
 
     @lombok.Data
@@ -256,6 +686,22 @@ public class GenerationController {
         private String label;
     }
 
+    @lombok.Data
+    @lombok.NoArgsConstructor
+    @lombok.AllArgsConstructor
+    public static class RegenerateRequest {
+        private DiagramAnalysisResult analysisResult;
+        private String database; // defaults to the database the project was generated for
+    }
+
+    @lombok.Data
+    @lombok.NoArgsConstructor
+    @lombok.AllArgsConstructor
+    public static class DownloadRequest {
+        private DiagramAnalysisResult analysisResult;
+        private String database;
+    }
+
     @lombok.Data
     @lombok.NoArgsConstructor
     @lombok.AllArgsConstructor
@@ -0,0 +1,151 @@
+package com.archie.ai.client;
+
+import com.archie.config.ArchieConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ModelCircuitBreakerTest {
+
+    private static final long FAST = Duration.ofMillis(10).toNanos();
+    private static final long SLOW = Duration.ofSeconds(5).toNanos();
+    private static final Duration OPEN = Duration.ofSeconds(30);
+
+    private final AtomicLong clock = new AtomicLong();
+    private ArchieConfig.CircuitBreaker settings;
+
+    @BeforeEach
+    void setUp() {
+        settings = new ArchieConfig.CircuitBreaker();
+        settings.setWindowSize(4);
+        settings.setMinimumCalls(4);
+        settings.setFailureRateThreshold(50);
+        settings.setSlowCallRateThreshold(75);
+        settings.setSlowCallDuration(Duration.ofSeconds(1));
+        settings.setOpenDuration(OPEN);
+        settings.setHalfOpenCalls(2);
+    }
+
+    @Test
+    void staysClosedUntilMinimumCalls() {
+        ModelCircuitBreaker breaker = breaker();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure(FAST);
+        }
+        assertEquals(ModelCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void opensAtFailureRateAndRejectsCalls() {
+        ModelCircuitBreaker breaker = open(breaker());
+
+        assertEquals(ModelCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(OPEN, breaker.remainingOpen());
+
+        clock.addAndGet(OPEN.toNanos() - 1);
+        assertFalse(breaker.tryAcquire());
+        assertEquals(Duration.ofNanos(1), breaker.remainingOpen());
+    }
+
+    @Test
+    void opensAtSlowCallRate() {
+        ModelCircuitBreaker breaker = breaker();
+        for (int i = 0; i < 3; i++) {
+            breaker.tryAcquire();
+            breaker.onSuccess(SLOW);
+        }
+        breaker.tryAcquire();
+        breaker.onSuccess(FAST);
+
+        assertEquals(ModelCircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void halfOpenAdmitsOnlyTrialCallsAndCloses() {
+        ModelCircuitBreaker breaker = open(breaker());
+        clock.addAndGet(OPEN.toNanos());
+
+        assertTrue(breaker.tryAcquire());
+        assertEquals(ModelCircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+
+        breaker.onSuccess(FAST);
+        assertEquals(ModelCircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.onSuccess(FAST);
+        assertEquals(ModelCircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void failedOrSlowTrialReopens() {
+        ModelCircuitBreaker breaker = open(breaker());
+        clock.addAndGet(OPEN.toNanos());
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure(FAST);
+        assertEquals(ModelCircuitBreaker.State.OPEN, breaker.getState());
+
+        clock.addAndGet(OPEN.toNanos());
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess(SLOW);
+        assertEquals(ModelCircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void ignoredTrialReleasesItsPermitWithoutClosing() {
+        ModelCircuitBreaker breaker = open(breaker());
+        clock.addAndGet(OPEN.toNanos());
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+
+        breaker.onIgnored();
+        breaker.onIgnored();
+        assertEquals(ModelCircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        // Both permits are available again
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void ignoredCallsAreNotRecordedWhileClosed() {
+        ModelCircuitBreaker breaker = breaker();
+        for (int i = 0; i < 2; i++) {
+            breaker.tryAcquire();
+            breaker.onFailure(FAST);
+        }
+        for (int i = 0; i < 10; i++) {
+            breaker.tryAcquire();
+            breaker.onIgnored();
+        }
+        assertEquals(ModelCircuitBreaker.State.CLOSED, breaker.getState());
+
+        // Had the ignored calls counted as successes they would have pushed the failures out of the window
+        for (int i = 0; i < 2; i++) {
+            breaker.tryAcquire();
+            breaker.onSuccess(FAST);
+        }
+        assertEquals(ModelCircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    private ModelCircuitBreaker breaker() {
+        return new ModelCircuitBreaker("model", settings, clock::get);
+    }
+
+    private ModelCircuitBreaker open(ModelCircuitBreaker breaker) {
+        for (int i = 0; i < 4; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure(FAST);
+        }
+        return breaker;
+    }
+}
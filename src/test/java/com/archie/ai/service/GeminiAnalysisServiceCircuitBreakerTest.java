@@ -0,0 +1,238 @@
+package com.archie.ai.service;
+
+import com.archie.ai.client.GeminiUnavailableException;
+import com.archie.ai.client.ModelCircuitBreaker;
+import com.archie.ai.client.ModelCircuitBreakers;
+import com.archie.ai.model.DiagramAnalysisRequest;
+import com.archie.ai.model.DiagramAnalysisResult;
+import com.archie.config.ArchieConfig;
+import com.archie.loadtest.GeminiStubServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Circuit breaking and model fallback of the analysis service against a scripted Gemini endpoint
+ */
+class GeminiAnalysisServiceCircuitBreakerTest {
+
+    private static final String PRIMARY = "gemini-primary";
+    private static final String FALLBACK = "gemini-fallback";
+    private static final Duration OPEN = Duration.ofSeconds(30);
+    private static final Duration SLOW = Duration.ofMillis(200);
+
+    // Drives the circuit breakers; open durations and call times pass only when a test says so
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicInteger images = new AtomicInteger();
+    private ScriptedGeminiServer gemini;
+    private ArchieConfig config;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        gemini = new ScriptedGeminiServer();
+        config = new ArchieConfig();
+        config.getAnalysis().setRepairEnabled(false);
+
+        ArchieConfig.Client client = config.getAnalysis().getClient();
+        client.setMaxRetries(0);
+        client.setReadTimeout(Duration.ofMillis(500));
+
+        ArchieConfig.CircuitBreaker breaker = config.getAnalysis().getCircuitBreaker();
+        breaker.setWindowSize(4);
+        breaker.setMinimumCalls(4);
+        breaker.setFailureRateThreshold(50);
+        breaker.setSlowCallRateThreshold(100);
+        breaker.setSlowCallDuration(SLOW);
+        breaker.setOpenDuration(OPEN);
+        breaker.setHalfOpenCalls(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        gemini.close();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 429, 500, 503 })
+    void opensOnUpstreamErrorsAndFailsFast(int status) {
+        GeminiAnalysisService service = service(null);
+        gemini.reply(PRIMARY, GeminiStubServer.Reply.error(status));
+
+        failPrimary(service);
+        assertEquals(ModelCircuitBreaker.State.OPEN, state(service, PRIMARY));
+
+        assertThrows(GeminiUnavailableException.class, () -> service.analyzeDiagram(request()));
+        assertEquals(4, gemini.hits(PRIMARY));
+    }
+
+    @Test
+    void opensOnTimeouts() {
+        GeminiAnalysisService service = service(null);
+        gemini.reply(PRIMARY, GeminiStubServer.Reply.slow(GeminiStubServer.DEFAULT_ANALYSIS, 1500));
+
+        failPrimary(service);
+
+        assertEquals(ModelCircuitBreaker.State.OPEN, state(service, PRIMARY));
+    }
+
+    @Test
+    void ignoresLimiterRejections() throws InterruptedException {
+        ArchieConfig.Client client = config.getAnalysis().getClient();
+        client.setInitialLimit(1);
+        client.setMinLimit(1);
+        client.setMaxInFlight(1);
+        client.setMaxQueued(0);
+        // A single recorded failure would open the circuit
+        config.getAnalysis().getCircuitBreaker().setWindowSize(2);
+        config.getAnalysis().getCircuitBreaker().setMinimumCalls(1);
+        GeminiAnalysisService service = service(null);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        gemini.reply(PRIMARY, call -> {
+            entered.countDown();
+            release.await();
+            return GeminiStubServer.Reply.ok(GeminiStubServer.DEFAULT_ANALYSIS);
+        });
+
+        DiagramAnalysisRequest first = request();
+        CompletableFuture<DiagramAnalysisResult> holdsTheOnlySlot = service.analyzeDiagramAsync(first,
+                service.route(first));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        assertThrows(GeminiUnavailableException.class, () -> service.analyzeDiagram(request()));
+        assertEquals(ModelCircuitBreaker.State.CLOSED, state(service, PRIMARY));
+
+        release.countDown();
+        holdsTheOnlySlot.join();
+        assertEquals(1, gemini.hits(PRIMARY));
+        assertEquals(ModelCircuitBreaker.State.CLOSED, state(service, PRIMARY));
+    }
+
+    @Test
+    void switchesToFallbackModelWhileOpen() {
+        GeminiAnalysisService service = service(FALLBACK);
+        gemini.reply(PRIMARY, GeminiStubServer.Reply.error(503));
+        gemini.reply(FALLBACK, GeminiStubServer.Reply.ok(GeminiStubServer.DEFAULT_ANALYSIS));
+
+        failPrimary(service);
+        DiagramAnalysisResult result = service.analyzeDiagram(request());
+
+        assertEquals(2, result.getEntities().size());
+        assertEquals(4, gemini.hits(PRIMARY));
+        assertEquals(1, gemini.hits(FALLBACK));
+        assertEquals(ModelCircuitBreaker.State.CLOSED, state(service, FALLBACK));
+    }
+
+    @Test
+    void failsFastWhenFallbackIsOpenToo() {
+        GeminiAnalysisService service = service(FALLBACK);
+        gemini.reply(PRIMARY, GeminiStubServer.Reply.error(503));
+        gemini.reply(FALLBACK, GeminiStubServer.Reply.error(503));
+
+        failPrimary(service);
+        for (int i = 0; i < 4; i++) {
+            assertThrows(RuntimeException.class, () -> service.analyzeDiagram(request()));
+        }
+        assertEquals(ModelCircuitBreaker.State.OPEN, state(service, FALLBACK));
+
+        assertThrows(GeminiUnavailableException.class, () -> service.analyzeDiagram(request()));
+        assertEquals(4, gemini.hits(PRIMARY));
+        assertEquals(4, gemini.hits(FALLBACK));
+    }
+
+    @Test
+    void halfOpenClosesAfterSuccessfulTrials() {
+        GeminiAnalysisService service = service(null);
+        gemini.reply(PRIMARY, GeminiStubServer.Reply.error(503));
+        failPrimary(service);
+
+        clock.addAndGet(OPEN.toNanos());
+        gemini.reply(PRIMARY, GeminiStubServer.Reply.ok(GeminiStubServer.DEFAULT_ANALYSIS));
+        service.analyzeDiagram(request());
+        assertEquals(ModelCircuitBreaker.State.HALF_OPEN, state(service, PRIMARY));
+        service.analyzeDiagram(request());
+
+        assertEquals(ModelCircuitBreaker.State.CLOSED, state(service, PRIMARY));
+    }
+
+    @Test
+    void halfOpenReopensOnFailedOrSlowTrial() {
+        GeminiAnalysisService service = service(null);
+        gemini.reply(PRIMARY, GeminiStubServer.Reply.error(503));
+        failPrimary(service);
+
+        clock.addAndGet(OPEN.toNanos());
+        assertThrows(RuntimeException.class, () -> service.analyzeDiagram(request()));
+        assertEquals(ModelCircuitBreaker.State.OPEN, state(service, PRIMARY));
+
+        clock.addAndGet(OPEN.toNanos());
+        gemini.reply(PRIMARY, call -> {
+            clock.addAndGet(SLOW.toNanos());
+            return GeminiStubServer.Reply.ok(GeminiStubServer.DEFAULT_ANALYSIS);
+        });
+        service.analyzeDiagram(request());
+        assertEquals(ModelCircuitBreaker.State.OPEN, state(service, PRIMARY));
+    }
+
+    @Test
+    void unparseableReplyDoesNotCloseHalfOpenCircuit() {
+        GeminiAnalysisService service = service(null);
+        gemini.reply(PRIMARY, GeminiStubServer.Reply.error(503));
+        failPrimary(service);
+
+        clock.addAndGet(OPEN.toNanos());
+        gemini.reply(PRIMARY, GeminiStubServer.Reply.ok("I cannot see a diagram in this image."));
+        for (int i = 0; i < 3; i++) {
+            assertThrows(RuntimeException.class, () -> service.analyzeDiagram(request()));
+        }
+        assertEquals(ModelCircuitBreaker.State.HALF_OPEN, state(service, PRIMARY));
+
+        // The trial permits were released, so real trials can still close the circuit
+        gemini.reply(PRIMARY, GeminiStubServer.Reply.ok(GeminiStubServer.DEFAULT_ANALYSIS));
+        service.analyzeDiagram(request());
+        service.analyzeDiagram(request());
+        assertEquals(ModelCircuitBreaker.State.CLOSED, state(service, PRIMARY));
+    }
+
+    private GeminiAnalysisService service(String fallbackModel) {
+        return gemini.analysisService(config, new SimpleMeterRegistry(), PRIMARY, fallbackModel, clock::get);
+    }
+
+    private void failPrimary(GeminiAnalysisService service) {
+        for (int i = 0; i < 4; i++) {
+            assertThrows(RuntimeException.class, () -> service.analyzeDiagram(request()));
+        }
+    }
+
+    private static ModelCircuitBreaker.State state(GeminiAnalysisService service, String model) {
+        ModelCircuitBreakers breakers = (ModelCircuitBreakers) ReflectionTestUtils.getField(service,
+                "circuitBreakers");
+        return breakers.forModel(model).getState();
+    }
+
+    /**
+     * A distinct image per call, so neither the result cache nor single-flight hides a call
+     */
+    private DiagramAnalysisRequest request() {
+        return DiagramAnalysisRequest.builder()
+                .imageData(("diagram-" + images.incrementAndGet()).getBytes())
+                .imageFileName("diagram.png")
+                .imageMimeType("image/png")
+                .build();
+    }
+}
@@ -0,0 +1,81 @@
+package com.archie.ai.service;
+
+import com.archie.ai.client.GeminiUnavailableException;
+import com.archie.ai.model.DiagramAnalysisRequest;
+import com.archie.config.ArchieConfig;
+import com.archie.loadtest.GeminiStubServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The analysis answers within the client deadline however slow Gemini is or however many retries remain
+ */
+class GeminiAnalysisServiceDeadlineTest {
+
+    private static final String MODEL = "gemini-deadline";
+
+    private ScriptedGeminiServer gemini;
+    private ArchieConfig config;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        gemini = new ScriptedGeminiServer();
+        config = new ArchieConfig();
+        config.getAnalysis().setRepairEnabled(false);
+        config.getAnalysis().getCircuitBreaker().setEnabled(false);
+
+        ArchieConfig.Client client = config.getAnalysis().getClient();
+        client.setReadTimeout(Duration.ofSeconds(10));
+        client.setMaxRetries(3);
+        client.setDeadline(Duration.ofMillis(500));
+    }
+
+    @AfterEach
+    void tearDown() {
+        gemini.close();
+    }
+
+    @Test
+    void failsWithUnavailableOnceTheDeadlineHasPassed() {
+        GeminiAnalysisService service = service();
+        gemini.reply(MODEL, GeminiStubServer.Reply.slow(GeminiStubServer.DEFAULT_ANALYSIS, 5000));
+
+        long start = System.nanoTime();
+        assertThrows(GeminiUnavailableException.class, () -> service.analyzeDiagram(request()));
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(3)) < 0);
+    }
+
+    @Test
+    void doesNotRetryPastTheDeadline() {
+        GeminiAnalysisService service = service();
+        // Retry-After of 1s ends after the 500ms deadline
+        gemini.reply(MODEL, new GeminiStubServer.Reply(503, 0, null, "1"));
+
+        RuntimeException error = assertThrows(RuntimeException.class, () -> service.analyzeDiagram(request()));
+
+        assertTrue(error.getCause() instanceof GeminiUnavailableException);
+        assertEquals(1, gemini.hits(MODEL));
+    }
+
+    private GeminiAnalysisService service() {
+        return gemini.analysisService(config, new SimpleMeterRegistry(), MODEL, null);
+    }
+
+    private static DiagramAnalysisRequest request() {
+        return DiagramAnalysisRequest.builder()
+                .imageData("diagram".getBytes())
+                .imageFileName("diagram.png")
+                .imageMimeType("image/png")
+                .build();
+    }
+}
@@ -0,0 +1,116 @@
+package com.archie.ai.service;
+
+import com.archie.ai.model.DiagramAnalysisRequest;
+import com.archie.config.ArchieConfig;
+import com.archie.loadtest.GeminiStubServer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Replays recorded Gemini responses through parseAIResponse with and without structured output
+ * and checks the gemini.analysis.parse outcome counts per mode, and that only structured mode sends a schema.
+ * Recordings live in src/test/resources/recorded/{structured,freeform}, one generateContent response per file.
+ */
+class GeminiAnalysisServiceParseReplayTest {
+
+    private static final String MODEL = "gemini-replay";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void structuredOutputParsesEveryRecordedResponse() throws Exception {
+        Replay replay = replay("structured", true);
+
+        assertEquals(3, parseCount(replay.meterRegistry(), "structured", "success"));
+        assertEquals(0, parseCount(replay.meterRegistry(), "structured", "failure"));
+        assertNull(replay.meterRegistry().find("gemini.analysis.parse").tag("mode", "freeform").counter());
+
+        assertEquals(3, replay.requests().size());
+        for (JsonNode request : replay.requests()) {
+            JsonNode generationConfig = request.path("generationConfig");
+            assertEquals("application/json", generationConfig.path("responseMimeType").asText());
+            assertEquals("OBJECT", generationConfig.path("responseSchema").path("type").asText());
+            assertTrue(generationConfig.path("responseSchema").path("properties").has("entities"));
+        }
+    }
+
+    @Test
+    void freeFormParsesFencedAndProseWrappedResponses() throws Exception {
+        Replay replay = replay("freeform", false);
+
+        // Fenced, prose-wrapped and trailing-note replies parse; an empty analysis and a refusal do not
+        assertEquals(3, parseCount(replay.meterRegistry(), "freeform", "success"));
+        assertEquals(2, parseCount(replay.meterRegistry(), "freeform", "failure"));
+        assertNull(replay.meterRegistry().find("gemini.analysis.parse").tag("mode", "structured").counter());
+
+        assertEquals(5, replay.requests().size());
+        for (JsonNode request : replay.requests()) {
+            assertFalse(request.path("generationConfig").has("responseMimeType"));
+            assertFalse(request.path("generationConfig").has("responseSchema"));
+        }
+    }
+
+    /**
+     * Metrics of a replay and the generateContent request bodies it sent
+     */
+    private record Replay(SimpleMeterRegistry meterRegistry, List<JsonNode> requests) {
+    }
+
+    private Replay replay(String recording, boolean structuredOutput) throws IOException, URISyntaxException {
+        ArchieConfig config = new ArchieConfig();
+        config.getAnalysis().setStructuredOutput(structuredOutput);
+        config.getAnalysis().setRepairEnabled(false);
+        config.getAnalysis().getClient().setMaxRetries(0);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        List<JsonNode> requests = new ArrayList<>();
+
+        try (ScriptedGeminiServer gemini = new ScriptedGeminiServer()) {
+            GeminiAnalysisService service = gemini.analysisService(config, meterRegistry, MODEL, null);
+            int image = 0;
+            for (String text : recorded(recording)) {
+                gemini.reply(MODEL, GeminiStubServer.Reply.ok(text));
+                DiagramAnalysisRequest request = DiagramAnalysisRequest.builder()
+                        .imageData(("recorded-" + image++).getBytes())
+                        .imageFileName(recording + ".png")
+                        .imageMimeType("image/png")
+                        .build();
+                try {
+                    service.analyzeDiagram(request);
+                } catch (RuntimeException e) {
+                    // Counted as a parse failure
+                }
+            }
+            for (GeminiStubServer.Call call : gemini.calls(MODEL)) {
+                requests.add(objectMapper.readTree(call.body()));
+            }
+        }
+        return new Replay(meterRegistry, requests);
+    }
+
+    private static double parseCount(SimpleMeterRegistry meterRegistry, String mode, String outcome) {
+        Counter counter = meterRegistry.find("gemini.analysis.parse")
+                .tag("mode", mode)
+                .tag("outcome", outcome)
+                .counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private static List<String> recorded(String directory) throws IOException, URISyntaxException {
+        return GeminiStubServer.loadResponses(
+                Path.of(GeminiAnalysisServiceParseReplayTest.class.getResource("/recorded/" + directory).toURI()));
+    }
+}
@@ -0,0 +1,110 @@
+package com.archie.ai.service;
+
+import com.archie.ai.cache.AnalysisResultCache;
+import com.archie.ai.cache.AnalysisSingleFlight;
+import com.archie.ai.client.GeminiClient;
+import com.archie.ai.client.GeminiRequestWriter;
+import com.archie.ai.client.ModelCircuitBreakers;
+import com.archie.ai.prompt.AnalysisResponseSchema;
+import com.archie.ai.prompt.GeminiPromptBuilder;
+import com.archie.config.ArchieConfig;
+import com.archie.loadtest.GeminiStubServer;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Gemini stub whose reply is scripted per model, plus an analysis service wired to it
+ */
+final class ScriptedGeminiServer implements AutoCloseable {
+
+    // As configured by Spring Boot
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .findAndAddModules()
+            .build();
+    private final Map<String, GeminiStubServer.Script> scripts = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> hits = new ConcurrentHashMap<>();
+    private final List<GeminiStubServer.Call> calls = new CopyOnWriteArrayList<>();
+    private final List<GeminiClient> clients = new ArrayList<>();
+    private final GeminiStubServer stub;
+
+    ScriptedGeminiServer() throws IOException {
+        stub = GeminiStubServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), this::dispatch);
+    }
+
+    void reply(String model, GeminiStubServer.Reply reply) {
+        reply(model, call -> reply);
+    }
+
+    void reply(String model, GeminiStubServer.Script script) {
+        scripts.put(model, script);
+    }
+
+    int hits(String model) {
+        AtomicInteger count = hits.get(model);
+        return count != null ? count.get() : 0;
+    }
+
+    /**
+     * Requests received for the model, in arrival order
+     */
+    List<GeminiStubServer.Call> calls(String model) {
+        return calls.stream().filter(call -> call.model().equals(model)).toList();
+    }
+
+    /**
+     * Analysis service wired like the application context, talking to this server
+     */
+    GeminiAnalysisService analysisService(ArchieConfig config, MeterRegistry meterRegistry, String model,
+            String fallbackModel) {
+        return analysisService(config, meterRegistry, model, fallbackModel, System::nanoTime);
+    }
+
+    /**
+     * Analysis service whose circuit breakers read the given clock
+     */
+    GeminiAnalysisService analysisService(ArchieConfig config, MeterRegistry meterRegistry, String model,
+            String fallbackModel, LongSupplier nanoClock) {
+        config.getAnalysis().getClient().setBaseUrl(stub.baseUrl());
+        GeminiClient client = new GeminiClient(config, objectMapper, meterRegistry);
+        ReflectionTestUtils.setField(client, "apiKey", "test-key");
+        clients.add(client);
+
+        GeminiRequestWriter requestWriter = new GeminiRequestWriter(objectMapper);
+        GeminiAnalysisService service = new GeminiAnalysisService(new GeminiPromptBuilder(), objectMapper, client,
+                requestWriter, new AnalysisResultCache(config, objectMapper), new AnalysisSingleFlight(),
+                new ModelCircuitBreakers(config, meterRegistry, nanoClock), new AnalysisResponseSchema(objectMapper),
+                new AnalysisRepairService(new AnalysisValidator(), client, requestWriter, objectMapper, config),
+                new ModelRouter(config), meterRegistry, config);
+        ReflectionTestUtils.setField(service, "model", model);
+        ReflectionTestUtils.setField(service, "fallbackModel", fallbackModel);
+        return service;
+    }
+
+    @Override
+    public void close() {
+        clients.forEach(GeminiClient::shutdown);
+        stub.close();
+    }
+
+    private GeminiStubServer.Reply dispatch(GeminiStubServer.Call call) throws InterruptedException {
+        hits.computeIfAbsent(call.model(), key -> new AtomicInteger()).incrementAndGet();
+        calls.add(call);
+        GeminiStubServer.Script script = scripts.get(call.model());
+        return script != null ? script.reply(call) : GeminiStubServer.Reply.error(404);
+    }
+}
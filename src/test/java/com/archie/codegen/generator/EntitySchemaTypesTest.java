@@ -0,0 +1,116 @@
+package com.archie.codegen.generator;
+
+import com.archie.ai.model.DiagramAnalysisResult;
+import com.archie.config.ArchieConfig;
+import com.archie.config.DatabaseType;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The generated entity and schema.sql come from the same attributes; with ddl-auto=validate in production
+ * every column must have the type Hibernate expects for its field
+ */
+class EntitySchemaTypesTest {
+
+    // Column type Hibernate validates each generated field type against
+    private static final Map<String, String> EXPECTED_COLUMNS = Map.of(
+            "Long", "BIGINT",
+            "Integer", "INTEGER",
+            "String", "VARCHAR(",
+            "Boolean", "BOOLEAN",
+            "Double", "DOUBLE PRECISION",
+            "Float", "REAL",
+            "BigDecimal", "DECIMAL(",
+            "LocalDate", "DATE",
+            "LocalDateTime", "TIMESTAMP");
+
+    private static final Pattern FIELD = Pattern.compile("private (\\w+) (\\w+);");
+
+    private final ArchieConfig config = new ArchieConfig();
+
+    @ParameterizedTest
+    @EnumSource(value = DatabaseType.class, names = { "POSTGRESQL", "MYSQL" })
+    void entityFieldsMatchSchemaColumns(DatabaseType databaseType) {
+        DiagramAnalysisResult analysis = analysis(List.of(
+                attribute("id", "Long"),
+                attribute("quantity", "int32"),
+                attribute("views", "int64"),
+                attribute("price", "numeric"),
+                attribute("ratio", "float64"),
+                attribute("score", "float32"),
+                attribute("birthDate", "date"),
+                attribute("createdAt", "datetime"),
+                attribute("active", "bool"),
+                attribute("code", "char"),
+                attribute("origin", "Geometry")));
+        analysis.getEntities().get(0).getAttributes().get(0).setPrimaryKey(true);
+
+        String entity = new EntityGenerator(config).generateEntity(analysis.getEntities().get(0), analysis,
+                databaseType);
+        String schema = new SchemaGenerator(config).generateSchema(analysis, databaseType);
+
+        Matcher fields = FIELD.matcher(entity);
+        int checked = 0;
+        while (fields.find()) {
+            String expected = EXPECTED_COLUMNS.get(fields.group(1));
+            assertNotNull(expected, "unexpected field type " + fields.group(1));
+            String column = columnDefinition(schema, RelationshipResolver.toSnakeCase(fields.group(2)));
+            assertTrue(column.startsWith(expected),
+                    fields.group(1) + " " + fields.group(2) + " is stored in a " + column + " column");
+            checked++;
+        }
+        assertEquals(11, checked);
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = DatabaseType.class, names = { "POSTGRESQL", "MYSQL" })
+    void textColumnsAreDeclaredOnTheEntity(DatabaseType databaseType) {
+        DiagramAnalysisResult analysis = analysis(List.of(attribute("notes", "text")));
+
+        String entity = new EntityGenerator(config).generateEntity(analysis.getEntities().get(0), analysis,
+                databaseType);
+        String schema = new SchemaGenerator(config).generateSchema(analysis, databaseType);
+
+        assertTrue(entity.contains("columnDefinition = \"TEXT\""), entity);
+        assertTrue(entity.contains("private String notes;"), entity);
+        assertTrue(columnDefinition(schema, "notes").startsWith("TEXT"), schema);
+    }
+
+    private static String columnDefinition(String schema, String column) {
+        Matcher line = Pattern.compile("(?m)^\\s+" + column + " (.+?),?$").matcher(schema);
+        assertTrue(line.find(), "no column " + column + " in\n" + schema);
+        return line.group(1);
+    }
+
+    private static DiagramAnalysisResult analysis(List<DiagramAnalysisResult.AttributeMetadata> attributes) {
+        DiagramAnalysisResult.EntityMetadata entity = DiagramAnalysisResult.EntityMetadata.builder()
+                .name("Product")
+                .tableName("products")
+                .attributes(attributes)
+                .build();
+        return DiagramAnalysisResult.builder()
+                .diagramType("ER_DIAGRAM")
+                .projectName("Shop")
+                .basePackage("com.example.shop")
+                .entities(List.of(entity))
+                .relationships(List.of())
+                .build();
+    }
+
+    private static DiagramAnalysisResult.AttributeMetadata attribute(String name, String type) {
+        return DiagramAnalysisResult.AttributeMetadata.builder()
+                .name(name)
+                .type(type)
+                .nullable(true)
+                .build();
+    }
+}
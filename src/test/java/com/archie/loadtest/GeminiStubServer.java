@@ -0,0 +1,292 @@
+package com.archie.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Offline stand-in for the Gemini generateContent / streamGenerateContent API, used for load tests
+ * and, through a {@link Script}, by the tests of the analysis service.
+ * From the command line it serves recorded responses with a configurable latency distribution and injected errors.
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/test-classes:target/classes:$(cat cp.txt) com.archie.loadtest.GeminiStubServer \
+ *     --port=8089 --responses=recorded/ --latency=lognormal:2000:0.5 --error-rate=0.02 --error-status=503
+ * </pre>
+ *
+ * Start Archie with GEMINI_BASE_URL=http://localhost:8089/v1beta and any GEMINI_API_KEY.
+ * Recorded files (*.json) are either full generateContent responses or the bare model output.
+ */
+public final class GeminiStubServer implements AutoCloseable {
+
+    private static final int STREAM_CHUNK_CHARS = 256;
+    private static final String MODELS_PATH = "/models/";
+
+    public static final String DEFAULT_ANALYSIS = """
+            {"diagramType":"ER_DIAGRAM","projectName":"StubShop","basePackage":"com.generated",
+             "entities":[
+              {"name":"Customer","tableName":"customers","attributes":[
+                {"name":"id","type":"Long","primaryKey":true},
+                {"name":"name","type":"String","length":100},
+                {"name":"email","type":"String","unique":true}]},
+              {"name":"Order","tableName":"orders","attributes":[
+                {"name":"id","type":"Long","primaryKey":true},
+                {"name":"total","type":"BigDecimal"},
+                {"name":"createdAt","type":"LocalDateTime"}]}],
+             "relationships":[
+              {"sourceEntity":"Customer","targetEntity":"Order","type":"ONE_TO_MANY","mappedBy":"customer"}]}
+            """;
+
+    /**
+     * One generateContent or streamGenerateContent request as received
+     */
+    public record Call(long id, String model, boolean streaming, byte[] body) {
+    }
+
+    /**
+     * The model text to send after delayMs, or an error status with an optional Retry-After
+     */
+    public record Reply(int status, long delayMs, String text, String retryAfter) {
+
+        public static Reply ok(String text) {
+            return new Reply(200, 0, text, null);
+        }
+
+        public static Reply slow(String text, long delayMs) {
+            return new Reply(200, delayMs, text, null);
+        }
+
+        public static Reply error(int status) {
+            return new Reply(status, 0, null, null);
+        }
+    }
+
+    /**
+     * Decides the reply to every call; may block, each call runs on its own virtual thread
+     */
+    @FunctionalInterface
+    public interface Script {
+        Reply reply(Call call) throws InterruptedException;
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Script script;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final HttpServer server;
+
+    private GeminiStubServer(InetSocketAddress address, Script script) throws IOException {
+        this.script = script;
+        this.server = HttpServer.create(address, 512);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /**
+     * Listen on the address (port 0 picks a free one) and answer every call through the script
+     */
+    public static GeminiStubServer start(InetSocketAddress address, Script script) throws IOException {
+        return new GeminiStubServer(address, script);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = LoadTestOptions.parse(args);
+        int port = Integer.parseInt(options.getOrDefault("port", "8089"));
+
+        List<String> responses = options.containsKey("responses")
+                ? loadResponses(Path.of(options.get("responses")))
+                : new ArrayList<>();
+        if (responses.isEmpty()) {
+            responses.add(DEFAULT_ANALYSIS);
+        }
+        GeminiStubServer stub = start(new InetSocketAddress(port), recorded(responses,
+                LatencyDistribution.parse(options.getOrDefault("latency", "lognormal:2000:0.5")),
+                Double.parseDouble(options.getOrDefault("error-rate", "0")),
+                Integer.parseInt(options.getOrDefault("error-status", "503")),
+                options.get("retry-after")));
+        System.out.printf("Gemini stub listening on %s (%d recorded responses)%n", stub.baseUrl(), responses.size());
+    }
+
+    /**
+     * Recorded responses in turn, with sampled latency and a share of injected errors
+     */
+    static Script recorded(List<String> responses, LatencyDistribution latency, double errorRate, int errorStatus,
+            String retryAfter) {
+        return call -> {
+            if (call.id() % 100 == 0) {
+                System.out.printf("%d requests served (last upload %d bytes)%n", call.id(), call.body().length);
+            }
+            long delayMs = latency.sample();
+            if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+                return new Reply(errorStatus, delayMs / 4, null, retryAfter);
+            }
+            return new Reply(200, delayMs, responses.get((int) (call.id() % responses.size())), null);
+        };
+    }
+
+    public String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/v1beta";
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            long id = requestCount.incrementAndGet();
+            String path = exchange.getRequestURI().getPath();
+            byte[] body = exchange.getRequestBody().readAllBytes();
+
+            int modelStart = path.indexOf(MODELS_PATH);
+            int modelEnd = modelStart < 0 ? -1 : path.indexOf(':', modelStart);
+            if (!"POST".equals(exchange.getRequestMethod()) || modelEnd < 0) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            Call call = new Call(id, path.substring(modelStart + MODELS_PATH.length(), modelEnd),
+                    path.endsWith(":streamGenerateContent"), body);
+            Reply reply;
+            try {
+                reply = script.reply(call);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (reply.status() != 200) {
+                sleep(reply.delayMs());
+                sendError(exchange, reply);
+            } else if (call.streaming()) {
+                stream(exchange, reply.text(), reply.delayMs());
+            } else {
+                sleep(reply.delayMs());
+                byte[] response = envelope(reply.text()).getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, response.length);
+                exchange.getResponseBody().write(response);
+            }
+        }
+    }
+
+    /**
+     * Server-sent events with the text split into chunks, spreading the latency across them
+     */
+    private void stream(HttpExchange exchange, String text, long delayMs) throws IOException {
+        int chunks = Math.max(1, (text.length() + STREAM_CHUNK_CHARS - 1) / STREAM_CHUNK_CHARS);
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        for (int i = 0; i < chunks; i++) {
+            sleep(delayMs / chunks);
+            String chunk = text.substring(i * STREAM_CHUNK_CHARS, Math.min(text.length(), (i + 1) * STREAM_CHUNK_CHARS));
+            out.write(("data: " + envelope(chunk) + "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+    }
+
+    private void sendError(HttpExchange exchange, Reply reply) throws IOException {
+        byte[] body = ("{\"error\":{\"code\":" + reply.status() + ",\"message\":\"Injected error\"}}")
+                .getBytes(StandardCharsets.UTF_8);
+        if (reply.retryAfter() != null) {
+            exchange.getResponseHeaders().set("Retry-After", reply.retryAfter());
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(reply.status(), body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private String envelope(String text) throws IOException {
+        ObjectNode root = objectMapper.createObjectNode();
+        ObjectNode content = root.putArray("candidates").addObject().putObject("content");
+        content.put("role", "model");
+        content.putArray("parts").addObject().put("text", text);
+        return objectMapper.writeValueAsString(root);
+    }
+
+    /**
+     * Model text of every recorded file in the directory, in file name order.
+     * Recorded files may hold a full generateContent response; only the model text is kept.
+     */
+    public static List<String> loadResponses(Path directory) throws IOException {
+        List<String> loaded = new ArrayList<>();
+        ObjectMapper mapper = new ObjectMapper();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(f -> f.toString().endsWith(".json")).sorted().toList()) {
+                String content = Files.readString(file);
+                JsonNode text = readTree(mapper, content).path("candidates").path(0)
+                        .path("content").path("parts").path(0).path("text");
+                loaded.add(text.isTextual() ? text.asText() : content);
+            }
+        }
+        return loaded;
+    }
+
+    private static JsonNode readTree(ObjectMapper mapper, String content) {
+        try {
+            return mapper.readTree(content);
+        } catch (IOException e) {
+            return mapper.missingNode();
+        }
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * fixed:MS, uniform:MIN:MAX or lognormal:MEDIAN:SIGMA, all in milliseconds
+     */
+    record LatencyDistribution(String kind, double a, double b) {
+
+        static LatencyDistribution parse(String spec) {
+            String[] parts = spec.split(":");
+            double a = parts.length > 1 ? Double.parseDouble(parts[1]) : 0;
+            double b = parts.length > 2 ? Double.parseDouble(parts[2]) : 0;
+            return new LatencyDistribution(parts[0], a, b);
+        }
+
+        long sample() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            return switch (kind) {
+                case "fixed" -> (long) a;
+                case "uniform" -> (long) (a + random.nextDouble() * (b - a));
+                case "lognormal" -> (long) (a * Math.exp(b * random.nextGaussian()));
+                default -> throw new IllegalArgumentException("Unknown latency distribution: " + kind);
+            };
+        }
+    }
+}
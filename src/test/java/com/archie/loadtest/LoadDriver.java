@@ -0,0 +1,256 @@
+package com.archie.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Open-loop load driver for /api/generate/analyze and /api/generate/download/{projectId}.
+ * Requests are started on a fixed schedule regardless of how fast earlier ones finish, and
+ * latency is measured from the scheduled start, so queueing inside Archie shows up in the numbers.
+ * Reports p50/p95/p99 per endpoint and per pipeline stage (from statistics.stageTimings),
+ * throughput, and heap usage sampled from the actuator.
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/test-classes:target/classes:$(cat cp.txt) com.archie.loadtest.LoadDriver \
+ *     --target=http://localhost:8080 --image=diagram.png --rate=5 --duration=120 --warmup=10
+ * </pre>
+ */
+public final class LoadDriver {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private final String target;
+    private final byte[] image;
+    private final String imageName;
+    private final String database;
+    private final boolean download;
+
+    private final Map<String, ConcurrentLinkedQueue<Long>> samples = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> failures = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Long> heapSamples = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean recording;
+
+    LoadDriver(String target, byte[] image, String imageName, String database, boolean download) {
+        this.target = target;
+        this.image = image;
+        this.imageName = imageName;
+        this.database = database;
+        this.download = download;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadTestOptions.parse(args);
+        if (!options.containsKey("image")) {
+            System.err.println("Usage: LoadDriver --image=FILE [--target=URL] [--rate=N/s] [--duration=S] "
+                    + "[--warmup=S] [--database=H2] [--download=true]");
+            System.exit(2);
+        }
+
+        Path imagePath = Path.of(options.get("image"));
+        LoadDriver driver = new LoadDriver(
+                options.getOrDefault("target", "http://localhost:8080"),
+                Files.readAllBytes(imagePath),
+                imagePath.getFileName().toString(),
+                options.getOrDefault("database", "H2"),
+                Boolean.parseBoolean(options.getOrDefault("download", "true")));
+
+        driver.run(Double.parseDouble(options.getOrDefault("rate", "2")),
+                Integer.parseInt(options.getOrDefault("duration", "60")),
+                Integer.parseInt(options.getOrDefault("warmup", "5")));
+    }
+
+    void run(double rate, int durationSeconds, int warmupSeconds) throws InterruptedException {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long totalNanos = TimeUnit.SECONDS.toNanos(warmupSeconds + durationSeconds);
+        long measureFrom = TimeUnit.SECONDS.toNanos(warmupSeconds);
+
+        ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+        Thread heapSampler = Thread.ofVirtual().start(this::sampleHeap);
+
+        System.out.printf("Driving %s at %.1f req/s for %ds (+%ds warmup)%n", target, rate, durationSeconds,
+                warmupSeconds);
+        long start = System.nanoTime();
+        long measuredStart = 0;
+        for (long offset = 0; offset < totalNanos; offset += intervalNanos) {
+            long scheduled = start + offset;
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            if (!recording && offset >= measureFrom) {
+                recording = true;
+                measuredStart = System.nanoTime();
+            }
+            boolean measured = recording;
+            workers.execute(() -> runScenario(scheduled, measured));
+        }
+
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.MINUTES);
+        long measuredNanos = System.nanoTime() - measuredStart;
+        recording = false;
+        heapSampler.interrupt();
+
+        report(measuredNanos);
+    }
+
+    /**
+     * One user: upload a diagram, then download the generated project
+     */
+    private void runScenario(long scheduledNanos, boolean measured) {
+        try {
+            String boundary = "----archie-load-" + UUID.randomUUID();
+            HttpRequest analyze = HttpRequest.newBuilder(URI.create(target + "/api/generate/analyze"))
+                    .timeout(Duration.ofMinutes(5))
+                    .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(multipartBody(boundary)))
+                    .build();
+            HttpResponse<String> response = httpClient.send(analyze, HttpResponse.BodyHandlers.ofString());
+            long analyzeDone = System.nanoTime();
+
+            JsonNode body = objectMapper.readTree(response.body());
+            if (response.statusCode() != 200 || !body.path("success").asBoolean()) {
+                recordFailure("analyze", measured, response.statusCode());
+                return;
+            }
+            record("analyze (end-to-end)", analyzeDone - scheduledNanos, measured);
+            body.path("statistics").path("stageTimings").fields().forEachRemaining(stage -> record(
+                    "stage: " + stage.getKey(), TimeUnit.MILLISECONDS.toNanos(stage.getValue().asLong()), measured));
+
+            if (download) {
+                HttpRequest downloadRequest = HttpRequest.newBuilder(
+                        URI.create(target + "/api/generate/download/" + body.path("projectId").asText()))
+                        .timeout(Duration.ofMinutes(1))
+                        .GET()
+                        .build();
+                long downloadStart = System.nanoTime();
+                HttpResponse<byte[]> zip = httpClient.send(downloadRequest, HttpResponse.BodyHandlers.ofByteArray());
+                if (zip.statusCode() != 200) {
+                    recordFailure("download", measured, zip.statusCode());
+                } else {
+                    record("download", System.nanoTime() - downloadStart, measured);
+                }
+            }
+        } catch (IOException e) {
+            recordFailure("analyze", measured, -1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private byte[] multipartBody(String boundary) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(image.length + 512);
+        out.write(("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"database\"\r\n\r\n" + database + "\r\n"
+                + "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"" + imageName + "\"\r\n"
+                + "Content-Type: " + contentType(imageName) + "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        out.write(image);
+        out.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+
+    private String contentType(String fileName) {
+        String lower = fileName.toLowerCase();
+        if (lower.endsWith(".jpg") || lower.endsWith(".jpeg")) {
+            return "image/jpeg";
+        }
+        if (lower.endsWith(".gif")) {
+            return "image/gif";
+        }
+        return "image/png";
+    }
+
+    private void sampleHeap() {
+        URI uri = URI.create(target + "/actuator/metrics/jvm.memory.used?tag=area:heap");
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                if (recording) {
+                    HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(uri).GET().build(),
+                            HttpResponse.BodyHandlers.ofString());
+                    if (response.statusCode() == 200) {
+                        heapSamples.add(objectMapper.readTree(response.body())
+                                .path("measurements").path(0).path("value").asLong());
+                    }
+                }
+                Thread.sleep(1000);
+            } catch (IOException e) {
+                // Actuator not reachable, try again next second
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void record(String metric, long nanos, boolean measured) {
+        if (measured) {
+            samples.computeIfAbsent(metric, key -> new ConcurrentLinkedQueue<>()).add(nanos);
+        }
+    }
+
+    private void recordFailure(String metric, boolean measured, int status) {
+        if (measured) {
+            failures.computeIfAbsent(metric + " [" + status + "]", key -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    private void report(long measuredNanos) {
+        double seconds = measuredNanos / 1e9;
+        System.out.println();
+        System.out.printf("%-26s %8s %9s %9s %9s %9s %9s%n", "metric", "count", "p50 ms", "p95 ms", "p99 ms",
+                "max ms", "req/s");
+        for (Map.Entry<String, ConcurrentLinkedQueue<Long>> entry : new TreeMap<>(samples).entrySet()) {
+            List<Long> sorted = new ArrayList<>(entry.getValue());
+            Collections.sort(sorted);
+            System.out.printf("%-26s %8d %9.1f %9.1f %9.1f %9.1f %9.2f%n", entry.getKey(), sorted.size(),
+                    percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99),
+                    sorted.get(sorted.size() - 1) / 1e6, sorted.size() / seconds);
+        }
+
+        if (!failures.isEmpty()) {
+            System.out.println();
+            new TreeMap<>(failures).forEach((metric, count) -> System.out.printf("failed %-26s %8d%n", metric,
+                    count.get()));
+        }
+
+        if (!heapSamples.isEmpty()) {
+            long max = heapSamples.stream().mapToLong(Long::longValue).max().orElse(0);
+            double average = heapSamples.stream().mapToLong(Long::longValue).average().orElse(0);
+            System.out.printf("%nheap used: avg %.1f MB, max %.1f MB over %d samples%n", average / 1048576.0,
+                    max / 1048576.0, heapSamples.size());
+        }
+    }
+
+    private double percentile(List<Long> sorted, int percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.size());
+        return sorted.get(Math.max(0, rank - 1)) / 1e6;
+    }
+}